@@ -99,4 +99,29 @@ public class MessageConstant {
      * 用户已经存在
      */
     public static final String ALREADY_EXISTS = "已存在";
-}
\ No newline at end of file
+
+    /**
+     * 报表导出的日期范围不合法提示信息。
+     */
+    public static final String REPORT_DATE_RANGE_ERROR = "报表日期范围不合法，最多导出366天";
+
+    /**
+     * 报表导出失败提示信息。
+     */
+    public static final String REPORT_EXPORT_FAILED = "报表导出失败";
+
+    /**
+     * 购物车中的菜品或套餐已停售或已删除提示信息。
+     */
+    public static final String CART_ITEM_UNAVAILABLE = "购物车中有已停售的商品，请删除后再下单";
+
+    /**
+     * 再来一单时原订单中的商品全部已停售或已删除提示信息。
+     */
+    public static final String REPETITION_ITEMS_UNAVAILABLE = "原订单中的商品均已停售";
+
+    /**
+     * 分页游标格式错误提示信息。
+     */
+    public static final String PAGE_CURSOR_INVALID = "分页游标无效";
+}
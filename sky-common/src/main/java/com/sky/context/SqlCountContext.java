@@ -0,0 +1,45 @@
+package com.sky.context;
+
+/**
+ * SQL语句计数上下文类，用于统计当前线程（当前请求）执行的SQL语句条数。
+ * 此实现使用了{@link ThreadLocal}来确保线程安全，每个请求线程独立计数，
+ * 便于发现循环查询等导致语句数量随数据量增长的问题。
+ */
+public class SqlCountContext {
+
+    /**
+     * 使用{@link ThreadLocal}存储当前线程已执行的SQL语句条数。
+     */
+    private static final ThreadLocal<int[]> threadLocal = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * 将当前线程的SQL语句条数清零，通常在请求开始时调用。
+     */
+    public static void reset() {
+        threadLocal.get()[0] = 0;
+    }
+
+    /**
+     * 当前线程的SQL语句条数加一，每执行一条SQL语句时调用。
+     */
+    public static void increment() {
+        threadLocal.get()[0]++;
+    }
+
+    /**
+     * 获取当前线程已执行的SQL语句条数。
+     *
+     * @return 自上次清零以来执行的SQL语句条数
+     */
+    public static int get() {
+        return threadLocal.get()[0];
+    }
+
+    /**
+     * 清除当前线程的计数，通常在请求结束时调用。
+     */
+    public static void remove() {
+        threadLocal.remove();
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.sky.exception;
+
+/**
+ * 报表业务异常类，用于处理数据统计和报表导出相关的业务逻辑异常情况。
+ * 此异常继承自{@link BaseException}，提供了报表业务特定的异常处理机制。
+ */
+public class ReportBusinessException extends BaseException {
+
+    /**
+     * 构造一个新的报表业务异常，使用指定的详细错误消息。
+     *
+     * @param msg 异常消息的详细描述，提供关于报表业务异常的更多信息。
+     */
+    public ReportBusinessException(String msg) {
+        super(msg);
+    }
+}
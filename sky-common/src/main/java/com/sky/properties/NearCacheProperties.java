@@ -0,0 +1,67 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cache")
+@Data
+public class NearCacheProperties {
+
+    /**
+     * 每个缓存在本地（进程内）最多保存的条目数
+     */
+    private long localMaximumSize = 1000;
+
+    /**
+     * 本地缓存条目写入后的存活时间，单位秒
+     */
+    private long localTtl = 60;
+
+    /**
+     * 多节点之间传递缓存失效消息的Redis频道
+     */
+    private String invalidationTopic = "sky:cache:invalidate";
+
+    /**
+     * 多节点之间传递本地快照失效消息的Redis频道
+     */
+    private String snapshotTopic = "sky:snapshot:invalidate";
+
+    /**
+     * 缓存值序列化后超过该字节数时进行GZIP压缩，小于等于0时不压缩
+     */
+    private int compressThreshold = 2048;
+
+    /**
+     * 缓存条目的有效期，单位秒
+     */
+    private long ttl = 3600;
+
+    /**
+     * 空值（null或空集合）的有效期，单位秒
+     */
+    private long negativeTtl = 60;
+
+    /**
+     * 提前刷新系数，小于等于0时关闭提前刷新
+     */
+    private double earlyRefreshBeta = 1.0;
+
+    /**
+     * 缓存未命中时是否使用Redis锁保证多个节点只有一个回源加载
+     */
+    private boolean loadLockEnabled = true;
+
+    /**
+     * 加载锁的过期时间，单位毫秒
+     */
+    private long loadLockTtl = 3000;
+
+    /**
+     * 未获得加载锁时等待其他节点加载完成的最长时间，单位毫秒
+     */
+    private long loadLockWait = 1000;
+
+}
@@ -0,0 +1,18 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.snowflake")
+@Data
+public class SnowflakeProperties {
+
+    /**
+     * 当前节点的编号，取值范围0~1023，多个节点同时运行时必须互不相同；
+     * 为-1时启动时通过Redis租用一个未被其他存活节点占用的编号
+     */
+    private long workerId = -1;
+
+}
@@ -0,0 +1,102 @@
+package com.sky.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花算法ID生成器，生成趋势递增、全局唯一的64位ID。
+ * <p>
+ * ID由三部分组成：41位相对{@link #EPOCH}的毫秒时间戳、10位节点编号、12位毫秒内序列号，
+ * 每个节点每毫秒最多生成4096个ID，不同节点使用不同的节点编号，无需相互协调。
+ * <p>
+ * 时间戳和序列号保存在同一个{@link AtomicLong}中，通过CAS更新，不加锁。
+ * 同一毫秒内序列号用完或者系统时钟回拨时，沿用上次的时间戳继续递增（必要时借用下一毫秒），
+ * 保证ID不重复；时钟回拨超过{@link #MAX_BACKWARD_MILLIS}时抛出异常。
+ * <p>
+ * 节点编号可以由外部提供，例如从Redis租用的编号：每次生成ID时读取当前编号，
+ * 提供方在编号失效时抛出异常，此时不再生成ID，避免与占用同一编号的其他节点重复。
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 起始时间：2024-01-01 00:00:00 UTC
+     */
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    /**
+     * 允许的最大时钟回拨毫秒数，在此范围内继续使用上次的时间戳生成ID
+     */
+    private static final long MAX_BACKWARD_MILLIS = 5000;
+
+    private final LongSupplier workerId;
+
+    /**
+     * 高位为上次生成ID使用的时间戳，低12位为该时间戳下已使用的序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 创建ID生成器
+     *
+     * @param workerId 节点编号，取值范围0~1023，同时运行的节点必须互不相同
+     */
+    public SnowflakeIdGenerator(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("节点编号必须在0到" + MAX_WORKER_ID + "之间：" + workerId);
+        }
+        this.workerId = () -> workerId;
+    }
+
+    /**
+     * 创建使用外部节点编号的ID生成器
+     *
+     * @param workerId 每次生成ID时调用，返回当前有效的节点编号（0~1023），编号失效时应抛出异常
+     */
+    public SnowflakeIdGenerator(LongSupplier workerId) {
+        this.workerId = workerId;
+    }
+
+    /**
+     * 生成下一个ID
+     *
+     * @return 全局唯一的ID
+     * @throws IllegalStateException 节点编号已失效，或者时钟回拨超过允许范围
+     */
+    public long nextId() {
+        long workerId = this.workerId.getAsLong();
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > lastTimestamp) {
+                // 进入新的毫秒，序列号从0开始
+                next = now << SEQUENCE_BITS;
+            } else {
+                if (lastTimestamp - now > MAX_BACKWARD_MILLIS) {
+                    throw new IllegalStateException("系统时钟回拨" + (lastTimestamp - now) + "毫秒，拒绝生成ID");
+                }
+                // 同一毫秒或时钟回拨，沿用上次的时间戳；序列号用完时借用下一毫秒
+                next = (current & MAX_SEQUENCE) < MAX_SEQUENCE ? current + 1 : (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return (timestamp << TIMESTAMP_SHIFT) | (workerId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getWorkerId() {
+        return workerId.getAsLong();
+    }
+}
@@ -0,0 +1,93 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 雪花算法ID生成器测试：多线程并发生成的ID不重复，且每个线程内严格递增
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void generatesUniqueIdsAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        List<long[]> results = generateConcurrently(generator, generator);
+
+        Set<Long> ids = new HashSet<>();
+        for (long[] result : results) {
+            for (int i = 0; i < result.length; i++) {
+                assertTrue(ids.add(result[i]), "重复的ID：" + result[i]);
+                if (i > 0) {
+                    assertTrue(result[i] > result[i - 1], "同一线程内ID必须递增");
+                }
+                assertEquals(7, (result[i] >>> 12) & SnowflakeIdGenerator.MAX_WORKER_ID);
+            }
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+    }
+
+    @Test
+    void differentWorkersNeverCollide() throws Exception {
+        List<long[]> results = generateConcurrently(new SnowflakeIdGenerator(1), new SnowflakeIdGenerator(2));
+
+        Set<Long> ids = new HashSet<>();
+        for (long[] result : results) {
+            for (long id : result) {
+                assertTrue(ids.add(id), "重复的ID：" + id);
+            }
+        }
+    }
+
+    @Test
+    void rejectsWorkerIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+
+    /**
+     * 一半线程使用first，另一半使用second，所有线程同时开始生成ID
+     */
+    private List<long[]> generateConcurrently(SnowflakeIdGenerator first, SnowflakeIdGenerator second) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                SnowflakeIdGenerator generator = t % 2 == 0 ? first : second;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.sky.converter;
+
+import com.sky.dto.CategoryDTO;
+import com.sky.entity.Category;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * 分类相关对象的转换器
+ */
+@Mapper(config = ConverterConfig.class)
+public interface CategoryConverter {
+
+    CategoryConverter INSTANCE = Mappers.getMapper(CategoryConverter.class);
+
+    /**
+     * 分类数据传输对象转换为分类
+     */
+    Category toCategory(CategoryDTO categoryDTO);
+}
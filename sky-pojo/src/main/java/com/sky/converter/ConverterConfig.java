@@ -0,0 +1,16 @@
+package com.sky.converter;
+
+import org.mapstruct.Builder;
+import org.mapstruct.MapperConfig;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * 对象转换器的公共配置。
+ * <p>
+ * 转换代码在编译期由MapStruct生成，运行时直接调用getter和setter，不使用反射。
+ * 目标对象统一通过无参构造方法创建，不使用Lombok生成的Builder，
+ * 避免子类（如OrderVO）的Builder只包含子类字段；目标中多出的字段保持默认值。
+ */
+@MapperConfig(unmappedTargetPolicy = ReportingPolicy.IGNORE, builder = @Builder(disableBuilder = true))
+public interface ConverterConfig {
+}
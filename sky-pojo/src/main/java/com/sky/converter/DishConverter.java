@@ -0,0 +1,28 @@
+package com.sky.converter;
+
+import com.sky.dto.DishDTO;
+import com.sky.entity.Dish;
+import com.sky.vo.DishVO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * 菜品相关对象的转换器
+ */
+@Mapper(config = ConverterConfig.class)
+public interface DishConverter {
+
+    DishConverter INSTANCE = Mappers.getMapper(DishConverter.class);
+
+    /**
+     * 菜品数据传输对象转换为菜品，不包含口味
+     */
+    Dish toDish(DishDTO dishDTO);
+
+    /**
+     * 菜品转换为菜品视图对象，不包含口味和分类名称
+     */
+    @Mapping(target = "flavors", ignore = true)
+    DishVO toDishVO(Dish dish);
+}
@@ -0,0 +1,20 @@
+package com.sky.converter;
+
+import com.sky.dto.EmployeeDTO;
+import com.sky.entity.Employee;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * 员工相关对象的转换器
+ */
+@Mapper(config = ConverterConfig.class)
+public interface EmployeeConverter {
+
+    EmployeeConverter INSTANCE = Mappers.getMapper(EmployeeConverter.class);
+
+    /**
+     * 员工数据传输对象转换为员工
+     */
+    Employee toEmployee(EmployeeDTO employeeDTO);
+}
@@ -0,0 +1,41 @@
+package com.sky.converter;
+
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.entity.ShoppingCart;
+import com.sky.vo.OrderVO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * 订单相关对象的转换器
+ */
+@Mapper(config = ConverterConfig.class)
+public interface OrderConverter {
+
+    OrderConverter INSTANCE = Mappers.getMapper(OrderConverter.class);
+
+    /**
+     * 用户提交的下单数据转换为订单
+     */
+    Orders toOrders(OrdersSubmitDTO ordersSubmitDTO);
+
+    /**
+     * 订单转换为订单视图对象，不包含订单明细和菜品信息
+     */
+    OrderVO toOrderVO(Orders orders);
+
+    /**
+     * 购物车商品转换为订单明细，不包含订单id
+     */
+    @Mapping(target = "id", ignore = true)
+    OrderDetail toOrderDetail(ShoppingCart shoppingCart);
+
+    /**
+     * 订单明细转换为购物车商品，用于再来一单，不包含购物车id
+     */
+    @Mapping(target = "id", ignore = true)
+    ShoppingCart toShoppingCart(OrderDetail orderDetail);
+}
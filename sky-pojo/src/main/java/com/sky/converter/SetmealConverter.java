@@ -0,0 +1,20 @@
+package com.sky.converter;
+
+import com.sky.dto.SetmealDTO;
+import com.sky.entity.Setmeal;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * 套餐相关对象的转换器
+ */
+@Mapper(config = ConverterConfig.class)
+public interface SetmealConverter {
+
+    SetmealConverter INSTANCE = Mappers.getMapper(SetmealConverter.class);
+
+    /**
+     * 套餐数据传输对象转换为套餐，不包含套餐菜品
+     */
+    Setmeal toSetmeal(SetmealDTO setmealDTO);
+}
@@ -0,0 +1,20 @@
+package com.sky.converter;
+
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.ShoppingCart;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * 购物车相关对象的转换器
+ */
+@Mapper(config = ConverterConfig.class)
+public interface ShoppingCartConverter {
+
+    ShoppingCartConverter INSTANCE = Mappers.getMapper(ShoppingCartConverter.class);
+
+    /**
+     * 购物车数据传输对象转换为购物车商品，只包含菜品id、口味和套餐id
+     */
+    ShoppingCart toShoppingCart(ShoppingCartDTO shoppingCartDTO);
+}
@@ -0,0 +1,46 @@
+package com.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 按天分组的统计数据传输对象，用于封装某一天的营业额、订单数和新增用户数。
+ * 该对象通常由按日期分组的聚合查询一次性返回，避免逐天查询数据库。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DailyStatisticsDTO implements Serializable {
+
+    /**
+     * 统计日期。
+     */
+    private LocalDate date;
+
+    /**
+     * 当天的营业额（已完成订单的金额总和）。
+     */
+    private Double turnover;
+
+    /**
+     * 当天的订单总数。
+     */
+    private Integer orderCount;
+
+    /**
+     * 当天的有效订单数（已完成订单数）。
+     */
+    private Integer validOrderCount;
+
+    /**
+     * 当天的新增用户数。
+     */
+    private Integer newUsers;
+
+}
@@ -57,4 +57,25 @@ public class OrdersPageQueryDTO implements Serializable {
      */
     private Long userId;
 
+    /**
+     * 游标分页的游标，为null时使用页码分页。
+     * 查询第一页时传空字符串，之后传上一页结果中的nextCursor，此时忽略page参数。
+     */
+    private String cursor;
+
+    /**
+     * 由游标解析出的上一页最后一条订单的下单时间，不由前端传入。
+     */
+    private LocalDateTime lastOrderTime;
+
+    /**
+     * 由游标解析出的上一页最后一条订单的ID，不由前端传入。
+     */
+    private Long lastId;
+
+    /**
+     * 是否通过订单搜索后缀表按订单号、手机号做包含搜索，由服务端根据后缀表是否已回填完成设置，不由前端传入。
+     */
+    private boolean suffixSearch;
+
 }
\ No newline at end of file
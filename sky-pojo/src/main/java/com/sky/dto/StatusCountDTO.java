@@ -0,0 +1,28 @@
+package com.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+/**
+ * 按状态分组统计的数量，用于一次查询得到各状态的记录数。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StatusCountDTO implements Serializable {
+
+    /**
+     * 状态值，如订单状态或菜品、套餐的起售停售状态。
+     */
+    private Integer status;
+
+    /**
+     * 该状态下的记录数量。
+     */
+    private Integer count;
+
+}
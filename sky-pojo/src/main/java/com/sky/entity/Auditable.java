@@ -0,0 +1,19 @@
+package com.sky.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 带有创建、修改信息的实体，由公共字段自动填充切面统一赋值。
+ * <p>
+ * 实现类通过Lombok生成的setter实现这些方法，切面直接调用接口方法，不需要反射。
+ */
+public interface Auditable {
+
+    void setCreateTime(LocalDateTime createTime);
+
+    void setCreateUser(Long createUser);
+
+    void setUpdateTime(LocalDateTime updateTime);
+
+    void setUpdateUser(Long updateUser);
+}
@@ -0,0 +1,45 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+/**
+ * 订单搜索后缀实体类，保存订单号和手机号的每个后缀，用于"包含"搜索。
+ * 任意子串都是某个后缀的前缀，因此包含搜索可以转换为后缀列上可走索引的前缀匹配。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchSuffix implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 字段类型：订单号
+     */
+    public static final Integer NUMBER = 1;
+
+    /**
+     * 字段类型：手机号
+     */
+    public static final Integer PHONE = 2;
+
+    /**
+     * 后缀所属的字段类型，1表示订单号，2表示手机号。
+     */
+    private Integer field;
+
+    /**
+     * 字段值的一个后缀。
+     */
+    private String suffix;
+
+    /**
+     * 关联的订单ID。
+     */
+    private Long orderId;
+}
@@ -0,0 +1,30 @@
+package com.sky.vo;
+
+import com.sky.entity.ShoppingCart;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartPriceVO implements Serializable {
+    //按当前价格计算后的商品明细，amount为单价
+    private List<ShoppingCart> items;
+    //商品金额合计
+    private BigDecimal itemAmount;
+    //打包费
+    private Integer packAmount;
+    //配送费
+    private BigDecimal deliveryFee;
+    //应付总金额
+    private BigDecimal totalAmount;
+    //已停售或已删除而未计价的商品，只在跳过停售商品时有值
+    private List<ShoppingCart> unavailableItems;
+}
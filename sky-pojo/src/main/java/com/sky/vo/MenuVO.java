@@ -0,0 +1,25 @@
+package com.sky.vo;
+
+import com.sky.entity.Category;
+import com.sky.entity.Setmeal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuVO implements Serializable {
+    //启用的分类，包括菜品分类和套餐分类
+    private List<Category> categories;
+    //起售中的菜品及口味，key为分类id
+    private Map<Long, List<DishVO>> dishes;
+    //起售中的套餐，key为分类id
+    private Map<Long, List<Setmeal>> setmeals;
+}
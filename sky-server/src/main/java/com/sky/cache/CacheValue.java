@@ -0,0 +1,60 @@
+package com.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 缓存条目，在缓存值之外记录逻辑过期时间和加载耗时，
+ * 用于区分空值缓存的较短有效期以及判断是否需要提前刷新。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheValue implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 缓存值，可以为null
+     */
+    private Object value;
+
+    /**
+     * 逻辑过期时间，毫秒时间戳
+     */
+    private long expireAt;
+
+    /**
+     * 加载该值耗费的时间，单位毫秒
+     */
+    private long loadMillis;
+
+    /**
+     * 判断条目在指定时间是否已经过期
+     *
+     * @param now 当前毫秒时间戳
+     * @return 已过期返回true
+     */
+    public boolean isExpired(long now) {
+        return now >= expireAt;
+    }
+
+    /**
+     * 按概率判断是否需要在过期前提前刷新：越接近过期时间、加载耗时越长，提前刷新的概率越大，
+     * 使热点条目在过期前由少数请求在后台刷新，而不是过期后所有请求同时回源。
+     *
+     * @param now  当前毫秒时间戳
+     * @param beta 提前刷新系数，大于1时更倾向于提前刷新，小于等于0时不提前刷新
+     * @return 需要提前刷新返回true
+     */
+    public boolean shouldRefreshEarly(long now, double beta) {
+        if (beta <= 0) {
+            return false;
+        }
+        double gap = Math.max(loadMillis, 1) * beta * -Math.log(Math.random());
+        return now + gap >= expireAt;
+    }
+}
@@ -0,0 +1,125 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Redis值序列化器：将值序列化为带类型信息的JSON，序列化结果超过压缩阈值时再进行GZIP压缩。
+ * <p>
+ * 不使用接口响应用的JacksonObjectMapper，它的日期时间格式精确到分钟，缓存后会丢失秒；
+ * 这里按ISO格式保存完整的日期时间。类型信息只允许还原项目自身和集合、数值等类型，
+ * 避免Redis中被写入的数据指定任意类进行反序列化。
+ * <p>
+ * 反序列化时根据数据头部识别格式：GZIP数据先解压再解析JSON，
+ * 旧版本写入的JDK序列化数据仍使用JDK方式读取，保证切换序列化方式后已有的缓存可以正常读取。
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte GZIP_MAGIC_0 = (byte) 0x1f;
+    private static final byte GZIP_MAGIC_1 = (byte) 0x8b;
+    private static final byte JDK_MAGIC_0 = (byte) 0xac;
+    private static final byte JDK_MAGIC_1 = (byte) 0xed;
+
+    /**
+     * 反序列化时允许的类型：项目自身的实体、VO等，集合，BigDecimal等数值，以及缓存空值占位符
+     */
+    private static final PolymorphicTypeValidator TYPE_VALIDATOR = BasicPolymorphicTypeValidator.builder()
+            .allowIfSubType("com.sky.")
+            .allowIfSubType("java.util.")
+            .allowIfSubType("java.math.")
+            .allowIfSubType(NullValue.class)
+            .build();
+
+    /**
+     * 按ISO格式读取日期时间，同时兼容切换前按"yyyy-MM-dd HH:mm"写入的缓存
+     */
+    private static final DateTimeFormatter LOCAL_DATE_TIME_FORMATTER = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .optionalStart().appendLiteral('T').optionalEnd()
+            .optionalStart().appendLiteral(' ').optionalEnd()
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .toFormatter();
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer;
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+    /**
+     * 压缩阈值，单位字节，小于等于0时不压缩
+     */
+    private final int compressThreshold;
+
+    public CompactRedisSerializer(int compressThreshold) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.registerModule(new JavaTimeModule()
+                .addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(LOCAL_DATE_TIME_FORMATTER)));
+        // 写入类型信息，使List<DishVO>、Result<List<Setmeal>>等值可以还原为原来的类型
+        objectMapper.activateDefaultTyping(TYPE_VALIDATOR, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(objectMapper, null);
+        this.jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = jsonSerializer.serialize(value);
+        if (compressThreshold <= 0 || bytes.length <= compressThreshold) {
+            return bytes;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new SerializationException("压缩缓存数据失败", e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length > 1 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+            return jdkSerializer.deserialize(bytes);
+        }
+        if (bytes.length > 1 && bytes[0] == GZIP_MAGIC_0 && bytes[1] == GZIP_MAGIC_1) {
+            bytes = decompress(bytes);
+        }
+        return jsonSerializer.deserialize(bytes);
+    }
+
+    private byte[] decompress(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = gzip.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("解压缓存数据失败", e);
+        }
+        return out.toByteArray();
+    }
+}
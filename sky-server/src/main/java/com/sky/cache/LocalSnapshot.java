@@ -0,0 +1,88 @@
+package com.sky.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的只读快照，适合修改很少、读取频繁的数据。
+ * <p>
+ * 第一次读取时通过加载函数构建快照，之后的读取直接返回同一个对象，不访问数据库和Redis。
+ * 数据修改后调用{@link SnapshotManager#invalidate(String)}使快照失效，下次读取时重新构建并整体替换。
+ * 快照对象应当是不可变的，读取方拿到的始终是某一时刻的完整数据。
+ * <p>
+ * 为防止失效消息丢失导致快照长期不更新，快照超过最长存活时间后也会重新构建。
+ *
+ * @param <T> 快照数据的类型
+ */
+public class LocalSnapshot<T> {
+
+    private final String name;
+    private final Supplier<T> loader;
+    private final long maxAgeMillis;
+
+    private final AtomicReference<Entry<T>> current = new AtomicReference<>();
+    /**
+     * 每次失效时加1，用于判断构建期间是否发生过失效
+     */
+    private final AtomicLong version = new AtomicLong();
+    private final Object buildLock = new Object();
+
+    LocalSnapshot(String name, Supplier<T> loader, long maxAgeMillis) {
+        this.name = name;
+        this.loader = loader;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取当前快照，快照不存在或已过期时重新构建，同一时间只有一个线程执行构建
+     *
+     * @return 快照数据
+     */
+    public T get() {
+        Entry<T> entry = current.get();
+        if (entry != null && !entry.isExpired(maxAgeMillis)) {
+            return entry.value;
+        }
+        synchronized (buildLock) {
+            entry = current.get();
+            if (entry != null && !entry.isExpired(maxAgeMillis)) {
+                return entry.value;
+            }
+            long expectedVersion = version.get();
+            Entry<T> built = new Entry<>(loader.get());
+            current.set(built);
+            // 构建期间发生过失效时，数据可能已经过时，撤销本次替换，下次读取时重新构建
+            if (version.get() != expectedVersion) {
+                current.compareAndSet(built, null);
+            }
+            return built.value;
+        }
+    }
+
+    /**
+     * 只使当前节点的快照失效
+     */
+    void invalidateLocal() {
+        version.incrementAndGet();
+        current.set(null);
+    }
+
+    private static class Entry<T> {
+
+        private final T value;
+        private final long createdAt = System.currentTimeMillis();
+
+        Entry(T value) {
+            this.value = value;
+        }
+
+        boolean isExpired(long maxAgeMillis) {
+            return maxAgeMillis > 0 && System.currentTimeMillis() - createdAt > maxAgeMillis;
+        }
+    }
+}
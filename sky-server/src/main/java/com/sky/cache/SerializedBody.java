@@ -0,0 +1,76 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 预先序列化好的响应体，保存JSON字节、GZIP压缩后的字节和对应的ETag。
+ * <p>
+ * 数据不变时所有请求共用同一份字节，不再重复序列化和压缩。
+ */
+@Slf4j
+public class SerializedBody {
+
+    private final byte[] json;
+    /**
+     * 压缩后的字节，压缩失败或压缩后没有变小时为null
+     */
+    private final byte[] gzip;
+    private final String etag;
+
+    public SerializedBody(byte[] json) {
+        this.json = json;
+        this.gzip = compress(json);
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * 判断请求头If-None-Match中是否包含当前ETag，支持多个值和弱校验前缀
+     *
+     * @param ifNoneMatch 请求头If-None-Match的值
+     * @return 客户端缓存的内容与当前内容一致时返回true
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            log.error("压缩响应体失败", e);
+            return null;
+        }
+        byte[] bytes = out.toByteArray();
+        return bytes.length < json.length ? bytes : null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.sky.cache;
+
+import com.sky.properties.NearCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 本地快照管理器，负责创建{@link LocalSnapshot}并在多个节点之间同步失效。
+ * <p>
+ * 某个节点修改数据后使快照失效，同时通过Redis发布/订阅广播失效消息，
+ * 其他节点收到消息后使各自的同名快照失效。消息格式为"节点ID|快照名称"。
+ */
+@Component
+@Slf4j
+public class SnapshotManager implements MessageListener {
+
+    private static final String SEPARATOR = "|";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private NearCacheProperties nearCacheProperties;
+
+    /**
+     * 当前节点的唯一标识，用于忽略自己发出的失效消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, LocalSnapshot<?>> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 注册一个快照，最长存活时间与本地缓存相同
+     *
+     * @param name   快照名称，各节点之间通过名称对应
+     * @param loader 构建快照的加载函数
+     * @return 快照
+     */
+    public <T> LocalSnapshot<T> register(String name, Supplier<T> loader) {
+        LocalSnapshot<T> snapshot = new LocalSnapshot<>(name, loader, nearCacheProperties.getLocalTtl() * 1000);
+        if (snapshots.putIfAbsent(name, snapshot) != null) {
+            throw new IllegalStateException("快照名称重复：" + name);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 使当前节点和其他节点的快照失效
+     *
+     * @param name 快照名称
+     */
+    public void invalidate(String name) {
+        LocalSnapshot<?> snapshot = snapshots.get(name);
+        if (snapshot != null) {
+            snapshot.invalidateLocal();
+        }
+        try {
+            stringRedisTemplate.convertAndSend(nearCacheProperties.getSnapshotTopic(), nodeId + SEPARATOR + name);
+        } catch (Exception e) {
+            // 广播失败时其他节点的快照会在存活时间到期后重新构建
+            log.error("发布快照失效消息失败：{}", name, e);
+        }
+    }
+
+    /**
+     * 处理其他节点发布的快照失效消息
+     *
+     * @param message 失效消息
+     * @param pattern 订阅的频道
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 2);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        LocalSnapshot<?> snapshot = snapshots.get(parts[1]);
+        if (snapshot != null) {
+            log.debug("收到快照失效消息：{}", body);
+            snapshot.invalidateLocal();
+        }
+    }
+}
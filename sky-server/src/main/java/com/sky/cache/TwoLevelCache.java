@@ -0,0 +1,407 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sky.properties.NearCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 两级缓存：一级为进程内的本地缓存，二级为Redis缓存。
+ * <p>
+ * 读取时先查本地缓存，未命中再查Redis并回填本地缓存；写入和删除时同时修改两级缓存，
+ * 并通过{@link TwoLevelCacheManager}发布失效消息，通知其他节点删除各自的本地缓存。
+ * <p>
+ * 通过{@link #get(Object, Callable)}回源加载时：
+ * <ul>
+ *     <li>同一节点内对同一个key的并发加载合并为一次；</li>
+ *     <li>开启加载锁时，多个节点之间通过Redis锁保证只有一个节点回源，其他节点等待其加载结果；</li>
+ *     <li>空值同样缓存，但有效期较短；</li>
+ *     <li>条目接近过期时按概率在后台提前刷新，避免过期瞬间大量请求同时回源。</li>
+ * </ul>
+ * 只有显式写入和删除才广播失效消息，回源加载和提前刷新写入的是与数据库一致的值，不通知其他节点。
+ * 回源前记录key的版本号，写入、删除和收到失效消息时递增版本号；加载期间版本号发生变化说明数据已被修改，
+ * 加载到的旧值不写入缓存，避免旧值覆盖删除操作并一直保留到过期。
+ * key为null时按{@link #NULL_KEY}处理。
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private static final long LOCK_POLL_INTERVAL = 50;
+    /**
+     * 版本号分段数，key按哈希值映射到其中一段，同一段内的key共用版本号
+     */
+    private static final int GENERATION_STRIPES = 1024;
+
+    /**
+     * key为null时（例如按null的分类id查询）实际使用的key
+     */
+    static final String NULL_KEY = "null";
+
+    private final String name;
+    /**
+     * 一级缓存，按key的字符串形式保存
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, CacheValue> localCache;
+    /**
+     * 二级缓存，即原有的Redis缓存
+     */
+    private final Cache redisCache;
+    private final TwoLevelCacheManager cacheManager;
+    private final NearCacheProperties properties;
+
+    /**
+     * 正在加载中的key，同一节点内的并发请求共用同一次加载结果
+     */
+    private final ConcurrentMap<String, CompletableFuture<CacheValue>> loading = new ConcurrentHashMap<>();
+    /**
+     * 正在后台提前刷新的key
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    /**
+     * key的版本号，按段保存避免为每个key保留一个计数器；同段的其他key被修改时只会让本次加载结果不写入缓存
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder redisEvictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, CacheValue> localCache,
+                         Cache redisCache,
+                         TwoLevelCacheManager cacheManager,
+                         NearCacheProperties properties) {
+        this.name = name;
+        this.localCache = localCache;
+        this.redisCache = redisCache;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        CacheValue cacheValue = lookup(normalize(key));
+        return cacheValue == null ? null : new SimpleValueWrapper(cacheValue.getValue());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        CacheValue cacheValue = lookup(normalize(key));
+        if (cacheValue == null) {
+            return null;
+        }
+        Object value = cacheValue.getValue();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值的类型不是[" + type.getName() + "]：" + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        key = normalize(key);
+        CacheValue cacheValue = lookup(key);
+        if (cacheValue == null) {
+            cacheValue = load(key, valueLoader);
+        } else if (cacheValue.shouldRefreshEarly(System.currentTimeMillis(), properties.getEarlyRefreshBeta())) {
+            refreshAsync(key, valueLoader);
+        }
+        return (T) cacheValue.getValue();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        key = normalize(key);
+        bumpGeneration(key.toString());
+        putValue(key, newCacheValue(value, 0));
+        cacheManager.publishEvict(name, key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        key = normalize(key);
+        bumpGeneration(key.toString());
+        redisCache.evict(key);
+        redisEvictions.increment();
+        localCache.invalidate(key.toString());
+        cacheManager.publishEvict(name, key);
+    }
+
+    @Override
+    public void clear() {
+        bumpAllGenerations();
+        redisCache.clear();
+        redisEvictions.increment();
+        localCache.invalidateAll();
+        cacheManager.publishClear(name);
+    }
+
+    /**
+     * 依次查询本地缓存和Redis，已过期的条目视为未命中
+     *
+     * @param key 缓存key
+     * @return 未过期的缓存条目，未命中时返回null
+     */
+    private CacheValue lookup(Object key) {
+        String localKey = key.toString();
+        CacheValue cacheValue = localCache.getIfPresent(localKey);
+        if (cacheValue == null) {
+            ValueWrapper wrapper = redisCache.get(key);
+            if (wrapper == null || !(wrapper.get() instanceof CacheValue)) {
+                redisMisses.increment();
+                return null;
+            }
+            redisHits.increment();
+            cacheValue = (CacheValue) wrapper.get();
+            localCache.put(localKey, cacheValue);
+        }
+        if (cacheValue.isExpired(System.currentTimeMillis())) {
+            localCache.invalidate(localKey);
+            return null;
+        }
+        return cacheValue;
+    }
+
+    /**
+     * 回源加载缓存值，同一节点内对同一个key的并发加载只执行一次，其余请求等待并共用其结果
+     */
+    private CacheValue load(Object key, Callable<?> valueLoader) {
+        String localKey = key.toString();
+        CompletableFuture<CacheValue> future = new CompletableFuture<>();
+        CompletableFuture<CacheValue> existing = loading.putIfAbsent(localKey, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            CacheValue cacheValue = loadWithLock(key, valueLoader);
+            future.complete(cacheValue);
+            return cacheValue;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(localKey, future);
+        }
+    }
+
+    /**
+     * 在多个节点之间加锁回源：获得锁的节点加载并写入缓存，其他节点在等待时间内轮询缓存，
+     * 等待超时后自行加载，避免锁持有者异常时请求一直阻塞
+     */
+    private CacheValue loadWithLock(Object key, Callable<?> valueLoader) {
+        if (!properties.isLoadLockEnabled()) {
+            return loadAndPut(key, valueLoader);
+        }
+        String lockKey = lockKey(key);
+        String token = cacheManager.tryLock(lockKey, properties.getLoadLockTtl());
+        if (token != null) {
+            try {
+                // 获得锁后再查一次，其他节点可能刚刚加载完成
+                CacheValue cacheValue = lookup(key);
+                return cacheValue != null ? cacheValue : loadAndPut(key, valueLoader);
+            } finally {
+                cacheManager.unlock(lockKey, token);
+            }
+        }
+        long deadline = System.currentTimeMillis() + properties.getLoadLockWait();
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(LOCK_POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            CacheValue cacheValue = lookup(key);
+            if (cacheValue != null) {
+                return cacheValue;
+            }
+        }
+        return loadAndPut(key, valueLoader);
+    }
+
+    /**
+     * 在后台提前刷新缓存条目，同一个key同时只有一个刷新任务，
+     * 开启加载锁时未获得锁说明其他节点正在刷新，直接跳过
+     */
+    private void refreshAsync(Object key, Callable<?> valueLoader) {
+        String localKey = key.toString();
+        if (!refreshing.add(localKey)) {
+            return;
+        }
+        try {
+            cacheManager.getRefreshExecutor().execute(() -> {
+                String lockKey = lockKey(key);
+                String token = null;
+                try {
+                    if (properties.isLoadLockEnabled()) {
+                        token = cacheManager.tryLock(lockKey, properties.getLoadLockTtl());
+                        if (token == null) {
+                            return;
+                        }
+                    }
+                    earlyRefreshes.increment();
+                    loadAndPut(key, valueLoader);
+                } catch (Exception e) {
+                    log.error("提前刷新缓存失败：{}::{}", name, key, e);
+                } finally {
+                    if (token != null) {
+                        cacheManager.unlock(lockKey, token);
+                    }
+                    refreshing.remove(localKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 刷新任务已满时放弃本次刷新，条目过期后会正常回源
+            refreshing.remove(localKey);
+        }
+    }
+
+    /**
+     * 回源加载并写入缓存。加载期间key被写入或删除时，加载结果只返回给调用方，不写入缓存；
+     * 写入后再检查一次版本号，写入的同时发生了删除则撤销本次写入
+     */
+    private CacheValue loadAndPut(Object key, Callable<?> valueLoader) {
+        loads.increment();
+        String localKey = key.toString();
+        long generation = generations.get(stripe(localKey));
+        long start = System.currentTimeMillis();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        CacheValue cacheValue = newCacheValue(value, System.currentTimeMillis() - start);
+        if (generations.get(stripe(localKey)) != generation) {
+            log.debug("缓存在加载期间被修改，不写入加载结果：{}::{}", name, key);
+            return cacheValue;
+        }
+        putValue(key, cacheValue);
+        if (generations.get(stripe(localKey)) != generation) {
+            redisCache.evict(key);
+            localCache.invalidate(localKey);
+        }
+        return cacheValue;
+    }
+
+    private void putValue(Object key, CacheValue cacheValue) {
+        redisCache.put(key, cacheValue);
+        localCache.put(key.toString(), cacheValue);
+    }
+
+    private int stripe(String localKey) {
+        int hash = localKey.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void bumpGeneration(String localKey) {
+        generations.incrementAndGet(stripe(localKey));
+    }
+
+    private void bumpAllGenerations() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+    }
+
+    private Object normalize(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    /**
+     * 创建缓存条目，空值使用较短的有效期
+     */
+    private CacheValue newCacheValue(Object value, long loadMillis) {
+        long ttlSeconds = isEmpty(value) ? properties.getNegativeTtl() : properties.getTtl();
+        return new CacheValue(value, System.currentTimeMillis() + ttlSeconds * 1000, loadMillis);
+    }
+
+    private boolean isEmpty(Object value) {
+        return value == null
+                || (value instanceof Collection && ((Collection<?>) value).isEmpty())
+                || (value instanceof Map && ((Map<?, ?>) value).isEmpty());
+    }
+
+    private String lockKey(Object key) {
+        return "lock:" + name + "::" + key;
+    }
+
+    /**
+     * 收到其他节点的失效消息后，只删除本地缓存中的条目
+     *
+     * @param key 缓存key的字符串形式
+     */
+    void evictLocal(String key) {
+        bumpGeneration(key);
+        localCache.invalidate(key);
+    }
+
+    /**
+     * 收到其他节点的清空消息后，只清空本地缓存
+     */
+    void clearLocal() {
+        bumpAllGenerations();
+        localCache.invalidateAll();
+    }
+
+    /**
+     * 获取两级缓存各自的命中、未命中和淘汰次数，以及回源加载次数
+     *
+     * @return 按缓存层级分组的统计数据
+     */
+    public Map<String, Map<String, Long>> getStatistics() {
+        CacheStats stats = localCache.stats();
+        Map<String, Long> local = new LinkedHashMap<>();
+        local.put("hits", stats.hitCount());
+        local.put("misses", stats.missCount());
+        local.put("evictions", stats.evictionCount());
+        local.put("size", localCache.estimatedSize());
+
+        Map<String, Long> redis = new LinkedHashMap<>();
+        redis.put("hits", redisHits.sum());
+        redis.put("misses", redisMisses.sum());
+        redis.put("evictions", redisEvictions.sum());
+
+        Map<String, Long> source = new LinkedHashMap<>();
+        source.put("loads", loads.sum());
+        source.put("earlyRefreshes", earlyRefreshes.sum());
+
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        result.put("local", local);
+        result.put("redis", redis);
+        result.put("source", source);
+        return result;
+    }
+}
@@ -0,0 +1,199 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.properties.NearCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两级缓存管理器，为每个缓存名称创建一个{@link TwoLevelCache}。
+ * <p>
+ * 本地缓存只在当前节点有效，某个节点修改缓存后通过Redis发布/订阅广播失效消息，
+ * 其他节点收到消息后删除本地缓存中对应的条目，下次读取时再从Redis加载最新数据。
+ * <p>
+ * 消息格式为"节点ID|缓存名称|key"，清空整个缓存时不带key。
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener, DisposableBean {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 释放加载锁的脚本，只有锁的值与加锁时的标识一致才删除，避免误删其他节点的锁
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final CacheManager redisCacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NearCacheProperties properties;
+    /**
+     * 当前节点的唯一标识，用于忽略自己发出的失效消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    /**
+     * 执行提前刷新任务的线程池，队列满时直接丢弃刷新任务
+     */
+    private final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(1, 4,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(100), new ThreadPoolExecutor.AbortPolicy());
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager,
+                                StringRedisTemplate stringRedisTemplate,
+                                NearCacheProperties properties) {
+        this.redisCacheManager = redisCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null) {
+            return null;
+        }
+        com.github.benmanes.caffeine.cache.Cache<String, CacheValue> localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfterWrite(properties.getLocalTtl(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        return new TwoLevelCache(name, localCache, redisCache, this, properties);
+    }
+
+    /**
+     * 广播某个缓存条目的失效消息
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存key
+     */
+    void publishEvict(String cacheName, Object key) {
+        publish(nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    /**
+     * 广播清空整个缓存的消息
+     *
+     * @param cacheName 缓存名称
+     */
+    void publishClear(String cacheName) {
+        publish(nodeId + SEPARATOR + cacheName);
+    }
+
+    private void publish(String message) {
+        try {
+            stringRedisTemplate.convertAndSend(properties.getInvalidationTopic(), message);
+        } catch (Exception e) {
+            // 广播失败时其他节点的本地缓存会在存活时间到期后自然失效
+            log.error("发布缓存失效消息失败：{}", message, e);
+        }
+    }
+
+    /**
+     * 尝试获取加载锁
+     *
+     * @param lockKey    锁的key
+     * @param ttlMillis  锁的过期时间，单位毫秒
+     * @return 获得锁时返回锁的标识，用于释放锁；未获得锁或Redis不可用时返回null
+     */
+    String tryLock(String lockKey, long ttlMillis) {
+        String token = nodeId + ":" + Thread.currentThread().getId();
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, token, ttlMillis, TimeUnit.MILLISECONDS);
+            return Boolean.TRUE.equals(locked) ? token : null;
+        } catch (Exception e) {
+            log.error("获取缓存加载锁失败：{}", lockKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * 释放加载锁
+     *
+     * @param lockKey 锁的key
+     * @param token   加锁时返回的标识
+     */
+    void unlock(String lockKey, String token) {
+        try {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), token);
+        } catch (Exception e) {
+            // 释放失败时锁会在过期后自动删除
+            log.error("释放缓存加载锁失败：{}", lockKey, e);
+        }
+    }
+
+    Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    /**
+     * 处理其他节点发布的缓存失效消息
+     *
+     * @param message 失效消息
+     * @param pattern 订阅的频道
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        log.debug("收到缓存失效消息：{}", body);
+        if (parts.length == 2) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+
+    /**
+     * 获取所有缓存的分层统计数据
+     *
+     * @return 以缓存名称为key的统计数据
+     */
+    public Map<String, Map<String, Map<String, Long>>> getStatistics() {
+        Map<String, Map<String, Map<String, Long>>> result = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> result.put(name, cache.getStatistics()));
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
+}
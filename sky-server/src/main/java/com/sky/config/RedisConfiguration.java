@@ -1,12 +1,27 @@
 package com.sky.config;
 
+import com.sky.cache.CompactRedisSerializer;
+import com.sky.cache.SnapshotManager;
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.properties.NearCacheProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 /**
  * Redis配置类，用于创建和配置RedisTemplate Bean。
  */
@@ -14,17 +29,38 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Slf4j
 public class RedisConfiguration {
 
+    /**
+     * 清空缓存时每次SCAN的键数量
+     */
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    /**
+     * 创建Redis值序列化器Bean的方法。
+     *
+     * <p>值使用项目的JacksonObjectMapper序列化为JSON，超过压缩阈值时再进行GZIP压缩，
+     * RedisTemplate和缓存管理器共用该序列化器。需要其他序列化方式时替换此Bean即可。
+     *
+     * @param nearCacheProperties 缓存配置，包含压缩阈值。
+     * @return 值序列化器。
+     */
+    @Bean
+    public RedisSerializer<Object> redisValueSerializer(NearCacheProperties nearCacheProperties) {
+        return new CompactRedisSerializer(nearCacheProperties.getCompressThreshold());
+    }
+
     /**
      * 创建RedisTemplate Bean的方法。
      *
      * <p>该方法使用Spring的@Bean注解，将其标记为一个Bean创建方法，Spring容器将调用此方法来创建RedisTemplate的实例。
-     * 它将设置连接工厂、键序列化器，并返回配置好的RedisTemplate对象。
+     * 它将设置连接工厂、键和值的序列化器，并返回配置好的RedisTemplate对象。
      *
      * @param redisConnectionFactory Redis连接工厂，用于创建Redis连接。
+     * @param redisValueSerializer   值序列化器。
      * @return 配置好的RedisTemplate对象。
      */
     @Bean
-    public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory){
+    public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       RedisSerializer<Object> redisValueSerializer){
         // 日志记录，标记Redis模板对象的创建开始
         log.info("开始创建redis模板对象...");
 
@@ -36,8 +72,67 @@ public class RedisConfiguration {
 
         // 设置键的序列化方式，这里使用StringRedisSerializer序列化字符串键
         redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+
+        // 设置值的序列化方式，替代默认的JDK序列化
+        redisTemplate.setValueSerializer(redisValueSerializer);
+        redisTemplate.setHashValueSerializer(redisValueSerializer);
 
         // 返回配置好的RedisTemplate对象
         return redisTemplate;
     }
-}
\ No newline at end of file
+
+    /**
+     * 创建Spring缓存管理器Bean的方法。
+     *
+     * <p>缓存分为两级：进程内的本地缓存和Redis缓存，本地缓存的大小和存活时间由{@link NearCacheProperties}配置。
+     * 清空整个Redis缓存时，默认的缓存写入器使用KEYS命令查找待删除的键，会阻塞Redis上的其他客户端，
+     * 这里改为使用SCAN命令分批查找并删除，日常的缓存失效则按分类精确删除单个键。
+     *
+     * @param redisConnectionFactory Redis连接工厂，用于创建Redis连接。
+     * @param stringRedisTemplate    用于发布缓存失效消息的模板对象。
+     * @param nearCacheProperties    本地缓存配置。
+     * @param redisValueSerializer   值序列化器。
+     * @return 配置好的两级缓存管理器。
+     */
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             NearCacheProperties nearCacheProperties,
+                                             RedisSerializer<Object> redisValueSerializer) {
+        log.info("开始创建两级缓存管理器...");
+
+        // 使用SCAN分批清理缓存的写入器
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(
+                redisConnectionFactory, BatchStrategies.scan(SCAN_BATCH_SIZE));
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(Duration.ofSeconds(nearCacheProperties.getTtl()))
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer)))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, nearCacheProperties);
+    }
+
+    /**
+     * 创建Redis消息监听容器，订阅缓存和快照的失效频道，收到消息后删除本节点的本地缓存和快照。
+     *
+     * @param redisConnectionFactory Redis连接工厂，用于创建Redis连接。
+     * @param cacheManager           两级缓存管理器，负责处理缓存失效消息。
+     * @param snapshotManager        本地快照管理器，负责处理快照失效消息。
+     * @param nearCacheProperties    本地缓存配置。
+     * @return 配置好的消息监听容器。
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       TwoLevelCacheManager cacheManager,
+                                                                       SnapshotManager snapshotManager,
+                                                                       NearCacheProperties nearCacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(nearCacheProperties.getInvalidationTopic()));
+        container.addMessageListener(snapshotManager, new ChannelTopic(nearCacheProperties.getSnapshotTopic()));
+        return container;
+    }
+}
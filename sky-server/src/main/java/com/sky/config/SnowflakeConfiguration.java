@@ -0,0 +1,56 @@
+package com.sky.config;
+
+import com.sky.properties.SnowflakeProperties;
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * ID生成器配置类，用于创建订单号等业务编号使用的雪花算法ID生成器。
+ */
+@Configuration
+@Slf4j
+public class SnowflakeConfiguration {
+
+    /**
+     * 创建节点编号租约的Bean，只在配置文件未指定节点编号时创建。
+     *
+     * @param stringRedisTemplate 用于占用和续期节点编号
+     * @return 节点编号租约
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "sky.snowflake.worker-id", havingValue = "-1", matchIfMissing = true)
+    public SnowflakeWorkerLease snowflakeWorkerLease(StringRedisTemplate stringRedisTemplate) {
+        return new SnowflakeWorkerLease(stringRedisTemplate);
+    }
+
+    /**
+     * 创建并配置SnowflakeIdGenerator的Bean。
+     * <p>优先使用配置文件中指定的节点编号；未指定时使用{@link SnowflakeWorkerLease}从Redis租用的编号，
+     * 租约在节点运行期间持续续期，已被存活节点占用的编号不会分配给新节点；租约失效期间生成ID会抛出异常。</p>
+     *
+     * @param snowflakeProperties ID生成器的配置属性
+     * @param workerLease         节点编号租约，配置文件指定了节点编号时不存在
+     * @return SnowflakeIdGenerator的实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SnowflakeIdGenerator snowflakeIdGenerator(SnowflakeProperties snowflakeProperties,
+                                                     ObjectProvider<SnowflakeWorkerLease> workerLease) {
+        long workerId = snowflakeProperties.getWorkerId();
+        if (workerId < 0) {
+            // 每次生成ID时读取租约中的编号，租约失效时停止生成ID
+            SnowflakeWorkerLease lease = workerLease.getObject();
+            log.info("创建ID生成器，租用的节点编号：{}", lease.getWorkerId());
+            return new SnowflakeIdGenerator(lease::getWorkerId);
+        }
+        log.info("创建ID生成器，节点编号：{}", workerId);
+        return new SnowflakeIdGenerator(workerId);
+    }
+}
@@ -0,0 +1,149 @@
+package com.sky.config;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过Redis租约为当前节点分配雪花算法的节点编号。
+ * <p>
+ * 每个编号对应一个带过期时间的key，节点用SET NX占用一个空闲编号，并定时续期；
+ * 节点停止时删除自己的key，节点异常退出时租约过期后编号被释放。
+ * 只有未被任何存活节点占用的编号才会被分配，无论节点重启多少次，同时运行的节点编号都互不相同。
+ * <p>
+ * 本地记录租约的有效期限：续期失败超过期限，或者发现编号已被其他节点占用时，{@link #getWorkerId()}抛出异常，
+ * ID生成器随之停止生成ID；编号被占用时立即重新租用一个空闲编号，成功后恢复生成。
+ */
+@Slf4j
+public class SnowflakeWorkerLease implements DisposableBean {
+
+    private static final String LEASE_KEY_PREFIX = "snowflake:worker:";
+    /**
+     * 选择起始编号使用的计数器，使新节点从不同位置开始查找空闲编号
+     */
+    private static final String COUNTER_KEY = "snowflake:worker_id";
+
+    private static final long LEASE_SECONDS = 60;
+    private static final long RENEW_INTERVAL_SECONDS = 20;
+    /**
+     * 本地认为租约有效的时间比Redis中的过期时间提前的秒数，留出时钟误差的余量
+     */
+    private static final long EXPIRE_MARGIN_SECONDS = 5;
+
+    /**
+     * 续期：租约仍属于当前节点时延长过期时间，租约已过期时重新占用，已被其他节点占用时返回0
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('get', KEYS[1]) " +
+                    "if owner == ARGV[1] then redis.call('expire', KEYS[1], ARGV[2]) return 1 end " +
+                    "if not owner then redis.call('set', KEYS[1], ARGV[1], 'EX', ARGV[2]) return 1 end " +
+                    "return 0",
+            Long.class);
+
+    /**
+     * 释放：只删除属于当前节点的租约
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String token = UUID.randomUUID().toString();
+    private volatile long workerId;
+    /**
+     * 租约在本地的有效期限（System.nanoTime），超过后不再返回节点编号
+     */
+    private volatile long validUntil;
+    private final ScheduledExecutorService renewExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snowflake-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SnowflakeWorkerLease(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        long start = System.nanoTime();
+        this.workerId = acquire();
+        this.validUntil = leaseDeadline(start);
+        renewExecutor.scheduleWithFixedDelay(this::renew,
+                RENEW_INTERVAL_SECONDS, RENEW_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 获取当前租用的节点编号
+     *
+     * @return 节点编号
+     * @throws IllegalStateException 租约已失效且尚未重新租用到编号
+     */
+    public long getWorkerId() {
+        if (System.nanoTime() - validUntil > 0) {
+            throw new IllegalStateException("雪花算法节点编号租约已失效，暂停生成ID");
+        }
+        return workerId;
+    }
+
+    /**
+     * 从计数器决定的位置开始依次尝试占用编号，所有编号都被占用时启动失败
+     */
+    private long acquire() {
+        long size = SnowflakeIdGenerator.MAX_WORKER_ID + 1;
+        Long counter = stringRedisTemplate.opsForValue().increment(COUNTER_KEY);
+        long start = counter == null ? 0 : counter % size;
+        for (long i = 0; i < size; i++) {
+            long id = (start + i) % size;
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LEASE_KEY_PREFIX + id, token, LEASE_SECONDS, TimeUnit.SECONDS);
+            if (Boolean.TRUE.equals(acquired)) {
+                return id;
+            }
+        }
+        throw new IllegalStateException("没有空闲的节点编号，同时运行的节点不能超过" + size + "个");
+    }
+
+    /**
+     * 续期租约：成功时延长本地有效期限；编号已被其他节点占用时立即作废本地租约并重新租用空闲编号。
+     * 续期出错时不延长期限，期限到达后停止生成ID，直到下一次续期成功
+     */
+    void renew() {
+        long start = System.nanoTime();
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT,
+                    Collections.singletonList(LEASE_KEY_PREFIX + workerId), token, String.valueOf(LEASE_SECONDS));
+            if (renewed != null && renewed == 1) {
+                validUntil = leaseDeadline(start);
+                return;
+            }
+            validUntil = start;
+            log.error("节点编号{}的租约已被其他节点占用，暂停生成ID并重新租用节点编号", workerId);
+            long newWorkerId = acquire();
+            workerId = newWorkerId;
+            validUntil = leaseDeadline(start);
+            log.info("重新租用到节点编号：{}", newWorkerId);
+        } catch (Exception e) {
+            log.error("节点编号{}的租约续期失败", workerId, e);
+        }
+    }
+
+    private long leaseDeadline(long start) {
+        return start + TimeUnit.SECONDS.toNanos(LEASE_SECONDS - EXPIRE_MARGIN_SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        renewExecutor.shutdown();
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(LEASE_KEY_PREFIX + workerId), token);
+        } catch (Exception e) {
+            log.warn("释放节点编号{}的租约失败", workerId, e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.sky.controller.admin;
+
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.result.Result;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 缓存监控控制器，提供查看当前节点缓存命中情况的接口。
+ */
+@RestController
+@RequestMapping("/admin/cache")
+@Api(tags = "缓存监控相关接口")
+@Slf4j
+public class CacheController {
+
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+
+    /**
+     * 查询当前节点各缓存的统计数据。
+     * <p>
+     * 按缓存名称分别返回本地缓存和Redis缓存的命中、未命中和淘汰次数。
+     *
+     * @return 包含统计数据的操作结果。
+     */
+    @GetMapping("/statistics")
+    @ApiOperation("缓存统计")
+    public Result<Map<String, Map<String, Map<String, Long>>>> statistics() {
+        return Result.success(cacheManager.getStatistics());
+    }
+}
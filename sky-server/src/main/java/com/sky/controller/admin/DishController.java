@@ -1,20 +1,26 @@
 package com.sky.controller.admin;
 
+import com.sky.cache.SnapshotManager;
+import com.sky.constant.StatusConstant;
 import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.DishService;
+import com.sky.service.MenuService;
 import com.sky.vo.DishVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -26,7 +32,9 @@ public class DishController {
     @Autowired
     private DishService dishService;
     @Autowired
-    private RedisTemplate redisTemplate;
+    private CacheManager cacheManager;
+    @Autowired
+    private SnapshotManager snapshotManager;
 
     /**
      * 新增菜品接口，接收一个菜品数据传输对象，并保存到数据库。
@@ -41,9 +49,8 @@ public class DishController {
         log.info("新增菜品：{}", dishDTO);
         // 调用服务层方法保存菜品及其风味信息
         dishService.saveWithFlavor(dishDTO);
-        // 根据菜品分类ID清除缓存
-        String key = "dish_" + dishDTO.getCategoryId();
-        cleanCache(key);
+        // 重建该分类的菜单快照
+        refreshCache(Collections.singleton(dishDTO.getCategoryId()));
         // 返回操作成功结果
         return Result.success();
     }
@@ -76,10 +83,12 @@ public class DishController {
     public Result delete(@RequestParam List<Long> ids) {
         // 记录日志，包含传入的菜品ID列表
         log.info("菜品批量删除：{}", ids);
+        // 删除前先查出受影响的分类
+        Set<Long> categoryIds = dishService.getCategoryIds(ids);
         // 调用服务层方法执行批量删除操作
         dishService.deleteBatch(ids);
-        // 清除所有菜品相关的缓存
-        cleanCache("dish_*");
+        // 重建受影响分类的菜单快照
+        refreshCache(categoryIds);
         // 返回操作成功结果
         return Result.success();
     }
@@ -112,10 +121,13 @@ public class DishController {
     public Result update(@RequestBody DishDTO dishDTO) {
         // 记录日志，包含传入的菜品信息
         log.info("修改菜品：{}", dishDTO);
+        // 修改前的分类和修改后的分类都需要重建
+        Set<Long> categoryIds = dishService.getCategoryIds(Collections.singletonList(dishDTO.getId()));
+        categoryIds.add(dishDTO.getCategoryId());
         // 调用服务层方法更新菜品及其风味信息
         dishService.updateWithFlavor(dishDTO);
-        // 清除所有菜品相关的缓存
-        cleanCache("dish_*");
+        // 重建受影响分类的菜单快照
+        refreshCache(categoryIds);
         // 返回操作成功结果
         return Result.success();
     }
@@ -131,9 +143,33 @@ public class DishController {
     @ApiOperation("菜品起售停售")
     public Result<String> startOrStop(@PathVariable Integer status, Long id) {
         // 调用服务层方法更新菜品的上架状态
-        dishService.startOrStop(status, id);
-        // 清除所有菜品相关的缓存
-        cleanCache("dish_*");
+        Set<Long> setmealCategoryIds = dishService.startOrStop(status, id);
+        // 重建该菜品所属分类的菜单快照
+        refreshCache(dishService.getCategoryIds(Collections.singletonList(id)));
+        // 清除被同时停售的套餐所属分类的缓存
+        cleanSetmealCache(setmealCategoryIds);
+        // 返回操作成功结果
+        return Result.success();
+    }
+
+    /**
+     * 菜品批量起售停售接口，用于售罄等场景一次修改多个菜品的状态。
+     * 停售时包含这些菜品的套餐同时停售。
+     *
+     * @param status 菜品的上架状态，1表示起售，0表示停售。
+     * @param ids    菜品ID列表。
+     * @return 包含操作结果的泛型结果。
+     */
+    @PostMapping("/status/{status}/batch")
+    @ApiOperation("菜品批量起售停售")
+    public Result<String> startOrStopBatch(@PathVariable Integer status, @RequestParam List<Long> ids) {
+        log.info("菜品批量起售停售：{}，{}", status, ids);
+        // 调用服务层方法批量更新菜品的上架状态
+        Set<Long> setmealCategoryIds = dishService.startOrStopBatch(status, ids);
+        // 只重建受影响分类的菜单快照
+        refreshCache(dishService.getCategoryIds(ids));
+        // 清除被同时停售的套餐所属分类的缓存
+        cleanSetmealCache(setmealCategoryIds);
         // 返回操作成功结果
         return Result.success();
     }
@@ -154,14 +190,44 @@ public class DishController {
     }
 
     /**
-     * 清除缓存的方法，根据传入的key模式删除匹配的缓存项。
+     * 重建菜单快照的方法，按分类重新查询起售中的菜品及口味并写入缓存。
+     * 在管理端修改菜品后立即重建，C端读取时无需再回源数据库。
+     *
+     * @param categoryIds 需要重建快照的分类ID集合。
+     */
+    private void refreshCache(Collection<Long> categoryIds) {
+        // 整个菜单的快照同时失效，下次请求时重新构建
+        snapshotManager.invalidate(MenuService.MENU_SNAPSHOT);
+        Cache cache = cacheManager.getCache("dishCache");
+        if (cache == null) {
+            return;
+        }
+        for (Long categoryId : categoryIds) {
+            if (categoryId == null) {
+                continue;
+            }
+            Dish dish = new Dish();
+            dish.setCategoryId(categoryId);
+            dish.setStatus(StatusConstant.ENABLE);
+            List<DishVO> list = dishService.listWithFlavor(dish);
+            cache.put(categoryId, list);
+        }
+    }
+
+    /**
+     * 按分类清除套餐缓存，菜品停售导致套餐被同时停售时调用。
      *
-     * @param pattern 缓存的key模式，用于匹配Redis中的keys。
+     * @param categoryIds 需要清除缓存的套餐分类ID集合。
      */
-    private void cleanCache(String pattern) {
-        // 使用RedisTemplate获取匹配pattern的所有keys
-        Set<String> keys = redisTemplate.keys(pattern);
-        // 删除匹配的keys
-        redisTemplate.delete(keys);
+    private void cleanSetmealCache(Collection<Long> categoryIds) {
+        Cache cache = cacheManager.getCache("setmealCache");
+        if (cache == null) {
+            return;
+        }
+        for (Long categoryId : categoryIds) {
+            if (categoryId != null) {
+                cache.evict(categoryId);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -13,9 +13,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDate;
 
 /**
@@ -118,13 +120,27 @@ public class ReportController {
      * 导出运营数据报表
      * 通过HTTP GET请求导出运营数据报表
      * 使用HttpServletResponse直接将报表数据返回给客户端
-     * 此方法不接受任何参数，报表的具体数据和格式由报告服务（reportService）决定
+     * 未指定日期时默认导出最近30天的数据，最多可导出366天
      *
-     * @param response HttpServletResponse对象，用于将报表数据作为响应返回给客户端
+     * @param begin           开始日期，格式为yyyy-MM-dd，可选
+     * @param end             结束日期，格式为yyyy-MM-dd，可选
+     * @param withOrderDetail 是否附带订单明细页，默认不附带
+     * @param response        HttpServletResponse对象，用于将报表数据作为响应返回给客户端
+     * @throws IOException 写出报表失败时抛出
      */
     @GetMapping("/export")
     @ApiOperation("导出运营数据报表")
-    public void export(HttpServletResponse response){
-        reportService.exportBusinessData(response);
+    public void export(@DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+                       @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+                       @RequestParam(defaultValue = "false") boolean withOrderDetail,
+                       HttpServletResponse response) throws IOException {
+        if (end == null) {
+            end = LocalDate.now().minusDays(1);
+        }
+        if (begin == null) {
+            begin = end.minusDays(29);
+        }
+        log.info("导出运营数据报表：{},{}", begin, end);
+        reportService.exportBusinessData(begin, end, withOrderDetail, response);
     }
 }
@@ -1,19 +1,26 @@
 package com.sky.controller.admin;
 
+import com.sky.cache.SnapshotManager;
 import com.sky.dto.SetmealDTO;
 import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.service.MenuService;
 import com.sky.service.SetmealService;
 import com.sky.vo.SetmealVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 套餐控制器，提供HTTP接口以实现套餐的增删改查操作。
@@ -25,6 +32,10 @@ import java.util.List;
 public class SetmealController {
     @Autowired
     private SetmealService setmealService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private SnapshotManager snapshotManager;
 
     /**
      * 新增套餐。
@@ -40,6 +51,7 @@ public class SetmealController {
     @CacheEvict(cacheNames = "setmealCache", key = "#setmealDTO.categoryId")
     public Result save(@RequestBody SetmealDTO setmealDTO) {
         setmealService.saveWithDish(setmealDTO); // 调用服务层保存套餐信息
+        snapshotManager.invalidate(MenuService.MENU_SNAPSHOT); // 整个菜单的快照同时失效
         return Result.success(); // 返回成功结果
     }
 
@@ -63,16 +75,17 @@ public class SetmealController {
      * 批量删除套餐。
      * <p>
      * 此DELETE方法接收一组套餐ID作为请求参数，调用服务层的批量删除方法，
-     * 并清除所有相关的缓存条目，最后返回操作结果。
+     * 并清除受影响分类的缓存条目，最后返回操作结果。
      *
      * @param ids 要删除的套餐ID列表。
      * @return 操作结果，包含成功或失败的状态信息。
      */
     @DeleteMapping
     @ApiOperation(value = "批量删除套餐")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true) // 清除缓存中的所有条目
     public Result delete(@RequestParam List<Long> ids) {
+        Set<Long> categoryIds = setmealService.getCategoryIds(ids); // 删除前先查出受影响的分类
         setmealService.deleteBatch(ids); // 调用服务层批量删除套餐
+        cleanCache(categoryIds); // 只清除受影响分类的缓存
         return Result.success(); // 返回成功结果
     }
 
@@ -96,16 +109,18 @@ public class SetmealController {
      * 修改套餐信息。
      * <p>
      * 此PUT方法接收一个JSON格式的套餐数据传输对象，包含要修改的套餐信息。
-     * 调用服务层的更新方法，并清除所有相关的缓存条目，最后返回操作结果。
+     * 调用服务层的更新方法，并清除受影响分类的缓存条目，最后返回操作结果。
      *
      * @param setmealDTO 包含要修改的套餐信息的数据传输对象。
      * @return 操作结果，包含成功或失败的状态信息。
      */
     @PutMapping
     @ApiOperation(value = "修改套餐")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true) // 清除缓存中的所有条目
     public Result update(@RequestBody SetmealDTO setmealDTO) {
+        Set<Long> categoryIds = setmealService.getCategoryIds(Collections.singletonList(setmealDTO.getId())); // 修改前的分类
+        categoryIds.add(setmealDTO.getCategoryId()); // 修改后的分类
         setmealService.update(setmealDTO); // 调用服务层更新套餐信息
+        cleanCache(categoryIds); // 只清除受影响分类的缓存
         return Result.success(); // 返回成功结果
     }
 
@@ -113,7 +128,7 @@ public class SetmealController {
      * 套餐起售或停售。
      * <p>
      * 此POST方法接收一个状态参数，用于控制套餐的起售或停售。
-     * 调用服务层的方法来更新套餐状态，并清除所有相关的缓存条目，最后返回操作结果。
+     * 调用服务层的方法来更新套餐状态，并清除受影响分类的缓存条目，最后返回操作结果。
      *
      * @param status 状态参数，1表示起售，0表示停售。
      * @param id 套餐ID。
@@ -121,9 +136,31 @@ public class SetmealController {
      */
     @PostMapping("/status/{status}")
     @ApiOperation(value = "套餐起售停售")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true) // 清除缓存中的所有条目
     public Result startOrStop(@PathVariable Integer status, Long id) {
         setmealService.startOrStop(status, id); // 调用服务层更新套餐的起售或停售状态
+        cleanCache(setmealService.getCategoryIds(Collections.singletonList(id))); // 只清除该套餐所属分类的缓存
         return Result.success(); // 返回成功结果
     }
+
+    /**
+     * 按分类清除套餐缓存。
+     * <p>
+     * 逐个删除受影响分类对应的缓存条目，代价与受影响的分类数成正比，
+     * 避免清空整个缓存时对Redis执行全量的键扫描。
+     *
+     * @param categoryIds 需要清除缓存的分类ID集合。
+     */
+    private void cleanCache(Collection<Long> categoryIds) {
+        // 整个菜单的快照同时失效，下次请求时重新构建
+        snapshotManager.invalidate(MenuService.MENU_SNAPSHOT);
+        Cache cache = cacheManager.getCache("setmealCache");
+        if (cache == null) {
+            return;
+        }
+        for (Long categoryId : categoryIds) {
+            if (categoryId != null) {
+                cache.evict(categoryId);
+            }
+        }
+    }
 }
\ No newline at end of file
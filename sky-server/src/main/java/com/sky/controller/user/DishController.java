@@ -9,7 +9,8 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -29,14 +30,15 @@ public class DishController {
     private DishService dishService;
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private CacheManager cacheManager;
 
     /**
      * 根据分类ID查询菜品列表。
      * <p>
-     * 此接口首先尝试从Redis缓存中获取指定分类ID的菜品列表。
+     * 此接口首先尝试从缓存（本地缓存和Redis两级）中获取指定分类ID的菜品列表。
      * 如果缓存中存在数据，则直接返回该数据。如果缓存中没有数据，将从数据库中查询，
      * 并将查询结果存入缓存，然后返回。
+     * 同一分类的并发未命中只会回源一次，没有菜品的分类同样缓存，但有效期较短。
      *
      * @param categoryId 分类ID，用于查询特定分类下的菜品。
      * @return 包含菜品信息的列表，封装在Result对象中。
@@ -44,16 +46,13 @@ public class DishController {
     @GetMapping("/list")
     @ApiOperation("根据分类id查询菜品")
     public Result<List<DishVO>> list(Long categoryId) {
-        String key = "dish_" + categoryId;
-        List<DishVO> list = (List<DishVO>) redisTemplate.opsForValue().get(key);
-        if(list!=null && list.size() > 0){
-            return Result.success(list);
-        }
-        Dish dish=new Dish();
-        dish.setCategoryId(categoryId);
-        dish.setStatus(StatusConstant.ENABLE);
-        list=dishService.listWithFlavor(dish);
-        redisTemplate.opsForValue().set(key, list);
+        Cache cache = cacheManager.getCache("dishCache");
+        List<DishVO> list = cache.get(categoryId, () -> {
+            Dish dish = new Dish();
+            dish.setCategoryId(categoryId);
+            dish.setStatus(StatusConstant.ENABLE);
+            return dishService.listWithFlavor(dish);
+        });
         return Result.success(list);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.sky.controller.user;
+
+import com.sky.cache.SerializedBody;
+import com.sky.service.MenuService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * C端菜单接口控制器，一次返回小程序首页需要的全部菜单数据。
+ */
+@RestController
+@RequestMapping("/user/menu")
+@Api(tags = "C端-菜单接口")
+public class MenuController {
+
+    /**
+     * 注入菜单服务，用于获取预先序列化好的菜单。
+     */
+    @Autowired
+    private MenuService menuService;
+
+    /**
+     * 查询整个菜单。
+     * <p>
+     * 返回启用的分类、起售中的菜品及口味和起售中的套餐，代替逐个分类调用分类、菜品和套餐接口。
+     * 响应带有ETag，客户端携带If-None-Match且菜单未变化时返回304，不再传输菜单内容；
+     * 客户端支持GZIP时直接返回预先压缩好的内容。
+     * <p>
+     * 菜单已经是序列化好的JSON字节，直接写入响应，不经过消息转换器。
+     *
+     * @param ifNoneMatch    客户端缓存的菜单ETag。
+     * @param acceptEncoding 客户端支持的压缩方式。
+     * @param response       HTTP响应对象。
+     */
+    @GetMapping
+    @ApiOperation("查询整个菜单")
+    public void menu(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                     HttpServletResponse response) throws IOException {
+        SerializedBody menu = menuService.getMenu();
+        response.setHeader(HttpHeaders.ETAG, menu.getEtag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // 304响应也要带上Vary，否则中间缓存可能把压缩和未压缩的内容混用
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (menu.matches(ifNoneMatch)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        byte[] body = menu.getJson();
+        if (menu.getGzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = menu.getGzip();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
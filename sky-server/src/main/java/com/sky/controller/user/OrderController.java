@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @RestController("userOrderController")
 @RequestMapping("/user/order")
@@ -69,12 +70,13 @@ public class OrderController {
      * @param page   当前页码
      * @param pageSize 每页显示的数量
      * @param status 订单状态
+     * @param cursor 游标分页的游标，第一页传空字符串，之后传上一页返回的nextCursor；不传时按页码分页
      * @return 包含分页结果的 {@link Result} 对象
      */
     @GetMapping("/historyOrders")
     @ApiOperation("历史订单查询")
-    public Result<PageResult> page(int page, int pageSize, Integer status){
-        PageResult pageResult = orderService.pageQuery4User(page, pageSize, status);
+    public Result<PageResult> page(int page, int pageSize, Integer status, String cursor){
+        PageResult pageResult = orderService.pageQuery4User(page, pageSize, status, cursor);
         return Result.success(pageResult);
     }
 
@@ -116,9 +118,9 @@ public class OrderController {
      */
     @PostMapping("/repetition/{id}")
     @ApiOperation("再来一单")
-    public Result repetition(@PathVariable Long id){
-        orderService.repetition(id);
-        return Result.success();
+    public Result<List<String>> repetition(@PathVariable Long id){
+        // 返回因停售未能加入购物车的商品名称
+        return Result.success(orderService.repetition(id));
     }
 
     /**
@@ -1,9 +1,13 @@
 package com.sky.controller.user;
 
+import com.sky.constant.MessageConstant;
 import com.sky.dto.ShoppingCartDTO;
 import com.sky.entity.ShoppingCart;
+import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.result.Result;
+import com.sky.service.PricingService;
 import com.sky.service.ShoppingCartService;
+import com.sky.vo.CartPriceVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +28,12 @@ public class ShoppingCartController {
     @Autowired
     private ShoppingCartService shoppingCartService;
 
+    /**
+     * 注入计价服务，用于按当前价格计算购物车金额。
+     */
+    @Autowired
+    private PricingService pricingService;
+
     /**
      * 添加商品到购物车。
      * <p>
@@ -55,6 +65,24 @@ public class ShoppingCartController {
         return Result.success(list);
     }
 
+    /**
+     * 预览当前登录用户购物车的金额。
+     * <p>
+     * 此GET接口按菜品和套餐的当前价格计算商品金额、打包费、配送费和总金额，
+     * 计算方式与下单时一致，前端展示的金额即为实际下单金额。
+     *
+     * @return 计价后的商品明细和各项金额。
+     */
+    @GetMapping("/preview")
+    @ApiOperation("购物车金额预览")
+    public Result<CartPriceVO> preview() {
+        List<ShoppingCart> list = shoppingCartService.showShoppingCart();
+        if (list.isEmpty()) {
+            throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
+        }
+        return Result.success(pricingService.price(list));
+    }
+
     /**
      * 清空当前登录用户的购物车。
      * <p>
@@ -0,0 +1,27 @@
+package com.sky.interceptor;
+
+import com.sky.context.SqlCountContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * SQL语句计数拦截器，在请求开始时清零计数，在请求结束时输出本次请求执行的SQL语句条数。
+ */
+@Component
+@Slf4j
+public class SqlCountInterceptor implements HandlerInterceptor {
+
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlCountContext.reset();
+        return true;
+    }
+
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        log.debug("请求 {} {} 执行SQL语句{}条", request.getMethod(), request.getRequestURI(), SqlCountContext.get());
+        SqlCountContext.remove();
+    }
+}
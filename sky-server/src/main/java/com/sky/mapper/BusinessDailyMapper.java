@@ -0,0 +1,59 @@
+package com.sky.mapper;
+
+import com.sky.dto.DailyStatisticsDTO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 每日营业数据汇总表数据访问接口。
+ * 汇总表按天保存营业额、订单数、有效订单数和新增用户数，
+ * 在订单状态和用户注册发生变化时增量维护，报表和工作台查询直接读取该表。
+ */
+@Mapper
+public interface BusinessDailyMapper {
+
+    /**
+     * 按天累加汇总数据，当天记录不存在时插入新记录。
+     *
+     * @param delta 需要累加的增量数据，为null的字段按0处理
+     */
+    void increment(DailyStatisticsDTO delta);
+
+    /**
+     * 根据订单表和用户表重新计算指定日期区间内（包含两端）的汇总数据并覆盖写入，
+     * 计算和写入在同一条INSERT ... SELECT语句中完成，区间内已有记录但没有原始数据的日期写0。
+     *
+     * @param begin 开始日期
+     * @param end   结束日期
+     */
+    void recompute(LocalDate begin, LocalDate end);
+
+    /**
+     * 查询汇总表中最早的日期。
+     *
+     * @return 汇总表为空时返回null
+     */
+    @Select("select min(date) from business_daily")
+    LocalDate getMinDate();
+
+    /**
+     * 查询指定日期区间内（包含两端）的每日汇总数据。
+     *
+     * @param begin 开始日期
+     * @param end   结束日期
+     * @return 每日汇总数据列表，没有记录的日期不包含在内
+     */
+    List<DailyStatisticsDTO> listByDateRange(LocalDate begin, LocalDate end);
+
+    /**
+     * 汇总指定日期区间内（包含两端）的营业数据。
+     *
+     * @param begin 开始日期，为null时不限制
+     * @param end   结束日期，为null时不限制
+     * @return 区间内各项数据的合计，date字段为空
+     */
+    DailyStatisticsDTO sumByDateRange(LocalDate begin, LocalDate end);
+}
@@ -23,6 +23,11 @@ public interface DishFlavorMapper {
      */
     @Delete("delete from dish_flavor where dish_id=#{dishId}")
     void deleteByDishId(Long dishId);
+    /**
+     * 根据多个菜品id批量删除口味数据
+     * @param dishIds
+     */
+    void deleteByDishIds(List<Long> dishIds);
     /**
      * 查询口味数据
      * @param dishId
@@ -30,4 +35,10 @@ public interface DishFlavorMapper {
      */
     @Select("select *from dish_flavor where dish_id=#{dishId}")
     List<DishFlavor> getByDishId(Long dishId);
+    /**
+     * 根据多个菜品id批量查询口味数据
+     * @param dishIds
+     * @return
+     */
+    List<DishFlavor> getByDishIds(List<Long> dishIds);
 }
@@ -3,6 +3,7 @@ package com.sky.mapper;
 import com.github.pagehelper.Page;
 import com.sky.annotation.AutoFill;
 import com.sky.dto.DishPageQueryDTO;
+import com.sky.dto.StatusCountDTO;
 import com.sky.entity.Dish;
 import com.sky.enumeration.OperationType;
 import com.sky.vo.DishVO;
@@ -11,7 +12,6 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * 菜品数据访问层接口，提供对菜品数据的操作。
@@ -53,6 +53,14 @@ public interface DishMapper {
     @Select("select * from dish where id = #{id}")
     Dish getById(Long id);
 
+    /**
+     * 根据主键批量查询菜品
+     *
+     * @param ids
+     * @return
+     */
+    List<Dish> getByIds(List<Long> ids);
+
     /**
      * 根据主键删除菜品数据
      *
@@ -61,6 +69,22 @@ public interface DishMapper {
     @Delete("delete from dish where id = #{id}")
     void deleteById(Long id);
 
+    /**
+     * 根据主键批量修改菜品状态
+     *
+     * @param dish 只使用其中的状态和修改信息
+     * @param ids
+     */
+    @AutoFill(value = OperationType.UPDATE)
+    void updateStatusByIds(Dish dish, List<Long> ids);
+
+    /**
+     * 根据主键批量删除菜品数据
+     *
+     * @param ids
+     */
+    void deleteByIds(List<Long> ids);
+
     /**
      * 根据id动态修改菜品数据
      *
@@ -87,10 +111,9 @@ public interface DishMapper {
     List<Dish> getBySetmealId(Long setmealId);
 
     /**
-     * 根据条件统计菜品数量
-     *
-     * @param map
+     * 按起售停售状态分组统计菜品数量
      * @return
      */
-    Integer countByMap(Map map);
+    @Select("select status, count(id) count from dish group by status")
+    List<StatusCountDTO> countGroupByStatus();
 }
\ No newline at end of file
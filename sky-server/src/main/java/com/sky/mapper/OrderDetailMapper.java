@@ -30,4 +30,12 @@ public interface OrderDetailMapper {
      */
     @Select("select * from order_detail where order_id=#{orderId}")
     List<OrderDetail> getByOrderId(Long orderId);
-}
\ No newline at end of file
+
+    /**
+     * 根据多个订单ID批量查询订单详情。
+     *
+     * @param orderIds 订单ID列表
+     * @return 与这些订单ID关联的所有订单详情
+     */
+    List<OrderDetail> getByOrderIds(List<Long> orderIds);
+}
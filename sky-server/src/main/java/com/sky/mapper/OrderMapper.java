@@ -3,9 +3,14 @@ package com.sky.mapper;
 import com.github.pagehelper.Page;
 import com.sky.dto.GoodsSalesDTO;
 import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.dto.StatusCountDTO;
 import com.sky.entity.Orders;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +44,28 @@ public interface OrderMapper {
      */
     Page<Orders> pageQuery(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 游标分页条件查询，返回上一页最后一条订单之后的pageSize + 1条订单，按下单时间和id倒序
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    List<Orders> pageQueryAfter(OrdersPageQueryDTO ordersPageQueryDTO);
+
+    /**
+     * 按id顺序查询订单的id、订单号和手机号，用于补建搜索后缀
+     * @param lastId 上一批最后一条订单的id
+     * @param limit
+     * @return
+     */
+    List<Orders> getForSearchIndex(Long lastId, Integer limit);
+
+    /**
+     * 统计满足分页查询条件的订单数量
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    Long countByQuery(OrdersPageQueryDTO ordersPageQueryDTO);
+
     /**
      * 根据id查询订单
      * @param id
@@ -47,34 +74,48 @@ public interface OrderMapper {
     Orders getById(Long id);
 
     /**
-     * 根据状态统计订单数量
-     * @param status
+     * 按状态分组统计订单数量，一次查询得到各状态的订单数
+     * @param begin 下单时间的下限（不包含），为null时不限制
+     * @param statuses 只统计这些状态，为null时统计所有状态
+     * @return
      */
-    @Select("select count(id) from orders where status = #{status}")
-    Integer countStatus(Integer status);
+    List<StatusCountDTO> countGroupByStatus(LocalDateTime begin, List<Integer> statuses);
 
     /**
-     * 根据订单状态和下单时间查询订单
+     * 按(下单时间, id)游标分页查询指定状态且下单时间早于指定时间的订单，只返回id和下单时间
      * @param status
      * @param orderTime
+     * @param lastOrderTime 上一页最后一条订单的下单时间，为null时从头查询
+     * @param lastId 上一页最后一条订单的id
+     * @param limit
      * @return
      */
-    @Select("select * from orders where status = #{status} and order_time < #{orderTime}")
-    List<Orders> getByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime);
+    List<Orders> getByStatusAndOrderTimeLTAfter(Integer status, LocalDateTime orderTime,
+                                                LocalDateTime lastOrderTime, Long lastId, Integer limit);
 
     /**
-     * 根据动态条件统计营业额数据
-     * @param map
+     * 批量修改订单状态，只修改当前状态仍为fromStatus的订单
+     * @param ids
+     * @param fromStatus 修改前的订单状态
+     * @param orders 修改后的状态及取消原因、取消时间、送达时间
+     * @return 实际修改的行数
+     */
+    int updateStatusByIds(List<Long> ids, Integer fromStatus, Orders orders);
+
+    /**
+     * 查询并锁定指定id中当前状态仍为status的订单，只返回id、下单时间和金额，需要在事务中调用
+     * @param ids
+     * @param status
      * @return
      */
-    Double sumByMap(Map map);
+    List<Orders> lockByIdsAndStatus(List<Long> ids, Integer status);
 
     /**
-     * 根据动态条件统计订单数量
+     * 根据动态条件统计营业额数据
      * @param map
      * @return
      */
-    Integer countByMap(Map map);
+    Double sumByMap(Map map);
 
     /**
      * 统计指定时间区间内的销量排名前10
@@ -83,4 +124,22 @@ public interface OrderMapper {
      * @return
      */
     List<GoodsSalesDTO> getSalesTop10(LocalDateTime begin,LocalDateTime end);
+
+    /**
+     * 查询最早的下单时间
+     * @return 没有订单时返回null
+     */
+    @Select("select min(order_time) from orders")
+    LocalDateTime getMinOrderTime();
+
+    /**
+     * 流式查询指定时间区间内的订单，逐行交给handler处理，不在内存中保留整个结果集
+     * @param begin
+     * @param end
+     * @param handler
+     */
+    @Select("select * from orders where order_time >= #{begin} and order_time <= #{end} order by order_time")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Orders.class)
+    void streamByOrderTime(LocalDateTime begin, LocalDateTime end, ResultHandler<Orders> handler);
 }
@@ -0,0 +1,16 @@
+package com.sky.mapper;
+
+import com.sky.entity.OrderSearchSuffix;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+@Mapper
+public interface OrderSearchMapper {
+
+    /**
+     * 批量保存订单搜索后缀，已存在的后缀忽略
+     * @param suffixes
+     */
+    void insertBatch(List<OrderSearchSuffix> suffixes);
+}
@@ -28,4 +28,10 @@ public interface SetmealDishMapper {
      */
     @Delete("delete from setmeal_dish where setmeal_id=#{setmealId}")
     void deleteByDishId(Long setmealId);
+    /**
+     * 根据多个套餐id批量删除套餐和菜品的关联关系
+     *
+     * @param setmealIds
+     */
+    void deleteBySetmealIds(List<Long> setmealIds);
 }
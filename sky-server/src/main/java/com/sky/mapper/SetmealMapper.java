@@ -3,6 +3,7 @@ package com.sky.mapper;
 import com.github.pagehelper.Page;
 import com.sky.annotation.AutoFill;
 import com.sky.dto.SetmealPageQueryDTO;
+import com.sky.dto.StatusCountDTO;
 import com.sky.entity.Setmeal;
 import com.sky.enumeration.OperationType;
 import com.sky.vo.DishItemVO;
@@ -12,7 +13,6 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * 套餐数据访问层接口，提供对套餐数据的操作。
@@ -55,12 +55,36 @@ public interface SetmealMapper {
      */
     @Select("select * from setmeal where id = #{id}")
     Setmeal getById(Long id);
+    /**
+     * 根据主键批量查询套餐
+     * @param ids
+     * @return
+     */
+    List<Setmeal> getByIds(List<Long> ids);
     /**
      * 根据id删除套餐
      * @param setmealId
      */
     @Delete("delete from setmeal where id = #{id}")
     void deleteById(Long setmealId);
+    /**
+     * 查询包含指定菜品且处于起售状态的套餐，只包含id和分类id
+     * @param dishIds
+     * @return
+     */
+    List<Setmeal> getEnabledByDishIds(List<Long> dishIds);
+    /**
+     * 根据id批量修改套餐状态
+     * @param setmeal 只使用其中的状态和修改信息
+     * @param ids
+     */
+    @AutoFill(OperationType.UPDATE)
+    void updateStatusByIds(Setmeal setmeal, List<Long> ids);
+    /**
+     * 根据id批量删除套餐
+     * @param ids
+     */
+    void deleteByIds(List<Long> ids);
     /**
      * 根据id查询套餐和套餐菜品关系
      * @param id
@@ -83,9 +107,9 @@ public interface SetmealMapper {
             "where sd.setmeal_id = #{setmealId}")
     List<DishItemVO> getDishItemBySetmealId(Long setmealId);
     /**
-     * 根据条件统计套餐数量
-     * @param map
+     * 按起售停售状态分组统计套餐数量
      * @return
      */
-    Integer countByMap(Map map);
+    @Select("select status, count(id) count from setmeal group by status")
+    List<StatusCountDTO> countGroupByStatus();
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.sky.entity.ShoppingCart;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 import java.util.List;
 
@@ -47,6 +48,14 @@ public interface ShoppingCartMapper {
     @Delete("delete from shopping_cart where user_id=#{userId}")
     void deleteByUserId(Long userId);
 
+    /**
+     * 查询MySQL中有购物车记录的所有用户ID。
+     *
+     * @return 用户ID列表。
+     */
+    @Select("select distinct user_id from shopping_cart")
+    List<Long> listUserIds();
+
     /**
      * 根据ID删除购物车记录。
      *
@@ -56,9 +65,32 @@ public interface ShoppingCartMapper {
     void deleteById(Long id);
 
     /**
-     * 批量插入购物车记录。
+     * 批量插入购物车记录，已存在的商品累加数量。
      *
      * @param shoppingCartList 包含多个购物车记录的列表。
      */
     void insertBatch(List<ShoppingCart> shoppingCartList);
+
+    /**
+     * 将购物车中已有商品的数量加1。
+     *
+     * @param shoppingCart 包含用户ID和商品（菜品ID、口味、套餐ID）的购物车对象。
+     * @return 修改的行数，商品不在购物车中时为0。
+     */
+    int incrementNumber(ShoppingCart shoppingCart);
+
+    /**
+     * 插入购物车记录，商品已存在时在原数量上累加。
+     *
+     * @param shoppingCart 包含新记录信息的购物车对象。
+     */
+    void upsert(ShoppingCart shoppingCart);
+
+    /**
+     * 查询并锁定购物车中的商品，需要在事务中调用。
+     *
+     * @param shoppingCart 包含用户ID和商品（菜品ID、口味、套餐ID）的购物车对象。
+     * @return 只包含ID和数量的购物车记录，商品不在购物车中时返回null。
+     */
+    ShoppingCart getItemForUpdate(ShoppingCart shoppingCart);
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.sky.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -36,4 +38,11 @@ public interface UserMapper {
      * @return
      */
     Integer countByMap(Map map);
-}
\ No newline at end of file
+
+    /**
+     * 查询最早的用户注册时间
+     * @return 没有用户时返回null
+     */
+    @Select("select min(create_time) from user")
+    LocalDateTime getMinCreateTime();
+}
@@ -0,0 +1,93 @@
+package com.sky.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 待支付订单超时延迟队列，基于Redis有序集合实现。
+ * <p>
+ * 下单时以订单的支付截止时间作为分数加入有序集合，定时任务每秒取出已到期的订单批量取消。
+ * 取出和删除在同一个Lua脚本中完成，多个节点同时拉取时同一个订单只会被一个节点取到。
+ */
+@Component
+@Slf4j
+public class OrderTimeoutQueue {
+
+    /**
+     * 下单后等待支付的时间，单位分钟
+     */
+    public static final int PAY_TIMEOUT_MINUTES = 15;
+
+    private static final String KEY = "order:timeout";
+
+    /**
+     * 原子地取出分数不大于当前时间的前N个成员并从集合中删除
+     */
+    private static final RedisScript<List> POLL_SCRIPT = new DefaultRedisScript<>(
+            "local ids = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'limit', 0, ARGV[2]) " +
+                    "if #ids > 0 then redis.call('zrem', KEYS[1], unpack(ids)) end " +
+                    "return ids",
+            List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 将订单加入超时队列
+     *
+     * @param orderId   订单id
+     * @param orderTime 下单时间
+     */
+    public void add(Long orderId, LocalDateTime orderTime) {
+        LocalDateTime deadline = orderTime.plusMinutes(PAY_TIMEOUT_MINUTES);
+        long score = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        try {
+            stringRedisTemplate.opsForZSet().add(KEY, orderId.toString(), score);
+        } catch (Exception e) {
+            // 加入失败时由定时兜底任务取消该订单
+            log.error("订单加入超时队列失败：{}", orderId, e);
+        }
+    }
+
+    /**
+     * 将订单移出超时队列，订单已支付或已取消时调用
+     *
+     * @param orderId 订单id
+     */
+    public void remove(Long orderId) {
+        try {
+            stringRedisTemplate.opsForZSet().remove(KEY, orderId.toString());
+        } catch (Exception e) {
+            // 移出失败不影响业务，到期后取消时会按订单状态过滤
+            log.error("订单移出超时队列失败：{}", orderId, e);
+        }
+    }
+
+    /**
+     * 取出已到期的订单，取出的订单同时从队列中删除
+     *
+     * @param limit 最多取出的数量
+     * @return 已到期的订单id列表
+     */
+    public List<Long> pollExpired(int limit) {
+        List<?> members = stringRedisTemplate.execute(POLL_SCRIPT, Collections.singletonList(KEY),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(limit));
+        List<Long> orderIds = new ArrayList<>();
+        if (members != null) {
+            for (Object member : members) {
+                orderIds.add(Long.valueOf(member.toString()));
+            }
+        }
+        return orderIds;
+    }
+}
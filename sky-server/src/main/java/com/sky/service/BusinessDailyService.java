@@ -0,0 +1,12 @@
+package com.sky.service;
+
+import com.sky.dto.DailyStatisticsDTO;
+
+public interface BusinessDailyService {
+
+    /**
+     * 在当前事务提交后累加每日营业数据汇总，没有事务时立即累加
+     * @param delta 需要累加的增量数据
+     */
+    void incrementAfterCommit(DailyStatisticsDTO delta);
+}
@@ -13,6 +13,7 @@ import com.sky.result.PageResult;
 import com.sky.vo.DishVO;
 
 import java.util.List;
+import java.util.Set;
 
 public interface DishService {
 
@@ -58,8 +59,18 @@ public interface DishService {
      *
      * @param status 状态值，通常1表示启动，0表示停止。
      * @param id 菜品的唯一标识ID。
+     * @return 因菜品停售而被同时停售的套餐所属的分类ID集合。
      */
-    void startOrStop(Integer status, Long id);
+    Set<Long> startOrStop(Integer status, Long id);
+
+    /**
+     * 批量启动或停止菜品的可用状态，停止时同时停售包含这些菜品的套餐。
+     *
+     * @param status 状态值，通常1表示启动，0表示停止。
+     * @param ids 菜品ID列表。
+     * @return 因菜品停售而被同时停售的套餐所属的分类ID集合。
+     */
+    Set<Long> startOrStopBatch(Integer status, List<Long> ids);
 
     /**
      * 根据分类ID列出所有菜品。
@@ -76,4 +87,12 @@ public interface DishService {
      * @return 包含风味信息的菜品视图对象列表。
      */
     List<DishVO> listWithFlavor(Dish dish);
+
+    /**
+     * 根据菜品ID列表查询这些菜品所属的分类ID。
+     *
+     * @param ids 菜品ID列表。
+     * @return 去重后的分类ID集合。
+     */
+    Set<Long> getCategoryIds(List<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.sky.service;
+
+import com.sky.cache.SerializedBody;
+
+public interface MenuService {
+
+    /**
+     * 整个菜单的快照名称，分类、菜品或套餐修改后通过该名称使菜单快照失效
+     */
+    String MENU_SNAPSHOT = "menu";
+
+    /**
+     * 获取整个菜单，包括启用的分类、起售中的菜品及口味和起售中的套餐
+     * @return 预先序列化好的菜单
+     */
+    SerializedBody getMenu();
+}
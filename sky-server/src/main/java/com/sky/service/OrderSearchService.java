@@ -0,0 +1,33 @@
+package com.sky.service;
+
+import com.sky.entity.Orders;
+
+import java.util.List;
+
+public interface OrderSearchService {
+
+    /**
+     * 只有长度不小于该值的搜索词才使用后缀表做包含搜索，更短的搜索词按前缀匹配
+     */
+    int MIN_SUFFIX_LENGTH = 3;
+
+    /**
+     * 为订单的订单号和手机号建立搜索后缀
+     * @param ordersList 订单列表，需要包含id、订单号和手机号
+     */
+    void index(List<Orders> ordersList);
+
+    /**
+     * 为还没有建立搜索后缀的历史订单补建后缀，从上次处理到的位置继续，处理完所有订单后标记后缀表可用。
+     * 多个节点之间通过Redis锁互斥，其他节点正在补建时直接返回
+     * @return 本次处理的订单数
+     */
+    int backfill();
+
+    /**
+     * 历史订单的搜索后缀是否已全部建立，建立完成之前包含搜索不能只依赖后缀表。
+     * 未开启sky.order.search-suffix-enabled时始终返回false
+     * @return
+     */
+    boolean isIndexReady();
+}
@@ -7,6 +7,8 @@ import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
 
+import java.util.List;
+
 public interface OrderService {
     /**
      * 用户下单
@@ -33,9 +35,10 @@ public interface OrderService {
      * @param page
      * @param pageSize
      * @param status
+     * @param cursor 游标分页的游标，为null时使用页码分页
      * @return
      */
-    PageResult pageQuery4User(int page, int pageSize, Integer status);
+    PageResult pageQuery4User(int page, int pageSize, Integer status, String cursor);
 
     /**
      * 查询订单详情
@@ -51,10 +54,11 @@ public interface OrderService {
     void userCancelById(Long id) throws Exception;
 
     /**
-     * 再来一单
+     * 再来一单，已停售或已删除的商品不加入购物车
      * @param id
+     * @return 未加入购物车的商品名称
      */
-    void repetition(Long id);
+    List<String> repetition(Long id);
 
     /**
      * 条件搜索订单
@@ -0,0 +1,26 @@
+package com.sky.service;
+
+import com.sky.entity.ShoppingCart;
+import com.sky.vo.CartPriceVO;
+
+import java.util.List;
+
+public interface PricingService {
+
+    /**
+     * 按菜品和套餐的当前价格计算购物车金额
+     * 商品名称、图片和单价以数据库为准，不使用购物车或客户端传入的值
+     * @param items 购物车商品，只使用菜品id、口味、套餐id和数量
+     * @return 计算后的商品明细、打包费、配送费和总金额
+     */
+    CartPriceVO price(List<ShoppingCart> items);
+
+    /**
+     * 按菜品和套餐的当前价格计算购物车金额
+     * @param items            购物车商品，只使用菜品id、口味、套餐id和数量
+     * @param skipUnavailable  为true时跳过已停售或已删除的商品，只计算其余商品，被跳过的商品放入unavailableItems；
+     *                         为false时遇到这类商品直接抛出异常
+     * @return 计算后的商品明细、打包费、配送费和总金额
+     */
+    CartPriceVO price(List<ShoppingCart> items, boolean skipUnavailable);
+}
@@ -6,6 +6,7 @@ import com.sky.vo.TurnoverReportVO;
 import com.sky.vo.UserReportVO;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDate;
 /**
  * ReportService接口定义了业务数据查询和导出的相关操作
@@ -45,9 +46,13 @@ public interface ReportService {
     SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end);
 
     /**
-     * 导出系统中的业务数据
-     * 该方法主要用于响应HTTP请求，以适当的数据格式（如CSV、Excel等）导出业务数据
+     * 导出系统中指定日期范围内的业务数据
+     * 该方法主要用于响应HTTP请求，以Excel格式导出运营数据报表，可选附带订单明细
+     * @param begin 统计开始日期
+     * @param end 统计结束日期，与开始日期最多相隔366天
+     * @param withOrderDetail 是否附带订单明细页
      * @param response 用于设置HTTP响应头和写入数据的HttpServletResponse对象
+     * @throws IOException 读取模板或写出报表失败时抛出
      */
-    void exportBusinessData(HttpServletResponse response);
+    void exportBusinessData(LocalDate begin, LocalDate end, boolean withOrderDetail, HttpServletResponse response) throws IOException;
 }
@@ -11,6 +11,7 @@ import com.sky.vo.DishItemVO;
 import com.sky.vo.SetmealVO;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * 服务接口，用于处理与套餐相关的业务逻辑。
@@ -77,4 +78,12 @@ public interface SetmealService {
      * @return 菜品项视图对象列表。
      */
     List<DishItemVO> getDishItemById(Long id);
+
+    /**
+     * 根据套餐ID列表查询这些套餐所属的分类ID。
+     *
+     * @param ids 套餐ID列表。
+     * @return 去重后的分类ID集合。
+     */
+    Set<Long> getCategoryIds(List<Long> ids);
 }
\ No newline at end of file
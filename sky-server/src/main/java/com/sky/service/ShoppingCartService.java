@@ -30,4 +30,10 @@ public interface ShoppingCartService {
      */
     void subShoppingCart(ShoppingCartDTO shoppingCartDTO);
 
+    /**
+     * 批量添加商品到当前用户的购物车，已有的商品累加数量
+     * @param shoppingCartList
+     */
+    void addBatch(List<ShoppingCart> shoppingCartList);
+
 }
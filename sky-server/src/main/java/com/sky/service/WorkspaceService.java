@@ -5,7 +5,9 @@ import com.sky.vo.DishOverViewVO;
 import com.sky.vo.OrderOverViewVO;
 import com.sky.vo.SetmealOverViewVO;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * WorkspaceService 接口定义了一套餐饮管理后台的核心服务功能，
@@ -22,6 +24,15 @@ public interface WorkspaceService {
      */
     BusinessDataVO getBusinessData(LocalDateTime begin, LocalDateTime end);
 
+    /**
+     * 获取指定日期范围内每一天的业务数据。
+     *
+     * @param begin 开始日期
+     * @param end 结束日期
+     * @return 按日期顺序排列的业务数据列表，第i个元素对应 begin 之后第i天
+     */
+    List<BusinessDataVO> getDailyBusinessData(LocalDate begin, LocalDate end);
+
     /**
      * 获取订单概览数据。
      *
@@ -0,0 +1,54 @@
+package com.sky.service.impl;
+
+import com.sky.dto.DailyStatisticsDTO;
+import com.sky.mapper.BusinessDailyMapper;
+import com.sky.service.BusinessDailyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 每日营业数据汇总服务实现类。
+ * <p>
+ * 下单、新用户注册都会修改当天的同一条汇总记录，累加放在业务事务之外、在独立的新事务中执行，
+ * 行锁只在这一条语句内持有；累加失败时只记录日志，由每日对账任务修正。
+ */
+@Service
+@Slf4j
+public class BusinessDailyServiceImpl implements BusinessDailyService {
+
+    @Autowired
+    private BusinessDailyMapper businessDailyMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void incrementAfterCommit(DailyStatisticsDTO delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                increment(delta);
+            }
+        });
+    }
+
+    private void increment(DailyStatisticsDTO delta) {
+        try {
+            // 提交后回调时原事务的连接仍绑定在当前线程，必须在新事务中执行才会被提交
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transactionTemplate.executeWithoutResult(status -> businessDailyMapper.increment(delta));
+        } catch (Exception e) {
+            log.error("累加每日营业数据失败：{}", delta, e);
+        }
+    }
+}
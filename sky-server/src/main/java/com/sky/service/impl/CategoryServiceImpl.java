@@ -2,9 +2,12 @@ package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.cache.LocalSnapshot;
+import com.sky.cache.SnapshotManager;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.context.BaseContext;
+import com.sky.converter.CategoryConverter;
 import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
 import com.sky.entity.Category;
@@ -14,13 +17,19 @@ import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.result.PageResult;
 import com.sky.service.CategoryService;
+import com.sky.service.MenuService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -31,6 +40,23 @@ public class CategoryServiceImpl implements CategoryService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private SnapshotManager snapshotManager;
+
+    /**
+     * 启用分类的快照名称
+     */
+    private static final String CATEGORY_SNAPSHOT = "category";
+
+    /**
+     * 启用分类的快照，按类型分组，key为null时对应全部分类
+     */
+    private LocalSnapshot<Map<Integer, List<Category>>> categorySnapshot;
+
+    @PostConstruct
+    public void initSnapshot() {
+        categorySnapshot = snapshotManager.register(CATEGORY_SNAPSHOT, this::loadCategories);
+    }
 
     /**
      * 保存分类信息。
@@ -40,10 +66,8 @@ public class CategoryServiceImpl implements CategoryService {
      * @param categoryDTO 分类信息数据传输对象
      */
     public void save(CategoryDTO categoryDTO) {
-        // 创建Category实体实例
-        Category category = new Category();
-        // 使用BeanUtils复制属性，从categoryDTO到category实体
-        BeanUtils.copyProperties(categoryDTO, category);
+        // 复制属性，从categoryDTO到新的category实体
+        Category category = CategoryConverter.INSTANCE.toCategory(categoryDTO);
         // 设置分类状态为禁用
         category.setStatus(StatusConstant.DISABLE);
         // 设置创建时间为当前时间
@@ -55,6 +79,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setUpdateUser(BaseContext.getCurrentId());
         // 调用数据访问层的insert方法，将category实体插入数据库
         categoryMapper.insert(category);
+        invalidateSnapshots();
     }
 
 
@@ -96,6 +121,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
         // 如果没有被引用，则调用Mapper接口的deleteById方法进行删除
         categoryMapper.deleteById(id);
+        invalidateSnapshots();
     }
 
     /**
@@ -105,16 +131,15 @@ public class CategoryServiceImpl implements CategoryService {
      */
 
     public void update(CategoryDTO categoryDTO) {
-        // 创建Category实体实例
-        Category category = new Category();
-        // 使用BeanUtils复制属性，从categoryDTO到category实体
-        BeanUtils.copyProperties(categoryDTO, category);
+        // 复制属性，从categoryDTO到新的category实体
+        Category category = CategoryConverter.INSTANCE.toCategory(categoryDTO);
         // 设置更新时间为当前时间
         category.setUpdateTime(LocalDateTime.now());
         // 设置更新用户为当前登录用户ID
         category.setUpdateUser(BaseContext.getCurrentId());
         // 调用Mapper接口的update方法，更新数据库中的分类记录
         categoryMapper.update(category);
+        invalidateSnapshots();
     }
 
     /**
@@ -134,18 +159,44 @@ public class CategoryServiceImpl implements CategoryService {
                 .build();
         // 调用Mapper接口的update方法，更新分类状态
         categoryMapper.update(category);
+        invalidateSnapshots();
     }
 
     /**
      * 根据类型查询分类列表。
+     * <p>从进程内的分类快照中读取，不访问数据库。分类新增、修改、启停和删除后快照失效，
+     * 下次读取时重新查询全部启用分类并按类型分组。</p>
      *
      * @param type 分类类型，如果为null，则返回所有类型的分类列表
-     * @return 分类列表
+     * @return 不可修改的分类列表
      */
 
     public List<Category> list(Integer type) {
-        // 调用Mapper接口的list方法，获取分类列表
-        return categoryMapper.list(type);
+        return categorySnapshot.get().getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * 分类变化后使分类快照和整个菜单的快照失效。
+     */
+    private void invalidateSnapshots() {
+        snapshotManager.invalidate(CATEGORY_SNAPSHOT);
+        snapshotManager.invalidate(MenuService.MENU_SNAPSHOT);
+    }
+
+    /**
+     * 查询全部启用分类，按类型分组构建不可修改的快照。
+     *
+     * @return 以类型为key的分类列表，key为null时对应全部分类
+     */
+    private Map<Integer, List<Category>> loadCategories() {
+        List<Category> all = categoryMapper.list(null);
+        Map<Integer, List<Category>> snapshot = new HashMap<>();
+        snapshot.put(null, Collections.unmodifiableList(all));
+        all.stream()
+                .filter(category -> category.getType() != null)
+                .collect(Collectors.groupingBy(Category::getType, LinkedHashMap::new, Collectors.toList()))
+                .forEach((type, list) -> snapshot.put(type, Collections.unmodifiableList(list)));
+        return Collections.unmodifiableMap(snapshot);
     }
 
 }
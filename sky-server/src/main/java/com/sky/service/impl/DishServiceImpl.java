@@ -4,6 +4,7 @@ import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
+import com.sky.converter.DishConverter;
 import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
@@ -18,13 +19,17 @@ import com.sky.result.PageResult;
 import com.sky.service.DishService;
 import com.sky.vo.DishVO;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -50,10 +55,8 @@ public class DishServiceImpl implements DishService {
      */
     @Transactional
     public void saveWithFlavor(DishDTO dishDTO) {
-        // 创建新的菜品对象
-        Dish dish = new Dish();
-        // 将dishDTO的属性复制到dish对象中
-        BeanUtils.copyProperties(dishDTO, dish);
+        // 将dishDTO的属性复制到新的菜品对象中
+        Dish dish = DishConverter.INSTANCE.toDish(dishDTO);
         // 将dish对象插入到数据库中
         dishMapper.insert(dish);
         // 获取刚插入的菜品的ID
@@ -96,31 +99,32 @@ public class DishServiceImpl implements DishService {
      *
      * <p>此方法首先检查传入的菜品ID列表中的每个菜品是否处于启用状态。如果菜品处于启用状态，则抛出异常，阻止删除操作。
      * 然后，查询是否有套餐包含这些菜品，如果有，则同样抛出异常，阻止删除。如果以上检查都通过，则执行删除操作，包括菜品信息和相关的风味信息。
+     * 查询和删除都按ID列表批量执行，无论删除多少个菜品，事务内都只执行固定数量的SQL语句。
      *
      * @param ids 要删除的菜品ID列表。
      * @throws DeletionNotAllowedException 如果菜品处于启用状态或被套餐引用，则抛出此异常。
      */
     @Transactional
     public void deleteBatch(List<Long> ids) {
-        // 检查每个菜品是否处于启用状态
-        for (Long id : ids) {
-            Dish dish = dishMapper.getById(id);
-            if (dish.getStatus() == StatusConstant.ENABLE) {
-                throw new DeletionNotAllowedException(MessageConstant.DISH_ON_SALE);
-            }
+        // 没有要删除的菜品时直接返回，避免生成空的in ()语句
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        // 一次查询出所有菜品，检查是否有菜品处于启用状态
+        boolean onSale = dishMapper.getByIds(ids).stream()
+                .anyMatch(dish -> StatusConstant.ENABLE.equals(dish.getStatus()));
+        if (onSale) {
+            throw new DeletionNotAllowedException(MessageConstant.DISH_ON_SALE);
         }
         // 检查是否有套餐包含这些菜品
         List<Long> setmealIds = setmealDishMapper.getSetmealIdsByDishIds(ids);
         if (setmealIds != null && !setmealIds.isEmpty()) {
             throw new DeletionNotAllowedException(MessageConstant.DISH_BE_RELATED_BY_SETMEAL);
         }
-        // 如果检查通过，则执行删除操作
-        for (Long id : ids) {
-            // 删除菜品信息
-            dishMapper.deleteById(id);
-            // 删除与菜品相关的风味信息
-            dishFlavorMapper.deleteByDishId(id);
-        }
+        // 如果检查通过，则批量删除菜品信息
+        dishMapper.deleteByIds(ids);
+        // 批量删除与菜品相关的风味信息
+        dishFlavorMapper.deleteByDishIds(ids);
     }
 
 
@@ -139,10 +143,8 @@ public class DishServiceImpl implements DishService {
         Dish dish = dishMapper.getById(id);
         // 查询与菜品ID关联的风味信息列表
         List<DishFlavor> dishFlavors = dishFlavorMapper.getByDishId(id);
-        // 创建DishVO对象
-        DishVO dishVO = new DishVO();
         // 将Dish对象的属性复制到DishVO对象中
-        BeanUtils.copyProperties(dish, dishVO);
+        DishVO dishVO = DishConverter.INSTANCE.toDishVO(dish);
         // 将风味信息设置到DishVO对象中
         dishVO.setFlavors(dishFlavors);
         // 返回包含菜品及其风味信息的DishVO对象
@@ -160,10 +162,8 @@ public class DishServiceImpl implements DishService {
      * @param dishDTO 包含更新后的菜品及其风味信息的数据传输对象。
      */
     public void updateWithFlavor(DishDTO dishDTO) {
-        // 创建一个新的菜品对象
-        Dish dish = new Dish();
-        // 将dishDTO的属性复制到dish对象中
-        BeanUtils.copyProperties(dishDTO, dish);
+        // 将dishDTO的属性复制到新的菜品对象中
+        Dish dish = DishConverter.INSTANCE.toDish(dishDTO);
         // 更新数据库中的菜品信息
         dishMapper.update(dish);
         // 获取dishDTO中的风味列表
@@ -184,42 +184,46 @@ public class DishServiceImpl implements DishService {
     /**
      * 启用或禁用菜品，并在需要时更新相关套餐的状态。
      *
-     * <p>此方法首先构建一个菜品对象，并设置其状态。然后，调用Mapper层的更新方法来更新数据库中的菜品状态。
-     * 如果菜品被禁用，该方法会检查是否有套餐包含此菜品。如果有，这些套餐的状态也会被禁用。
-     *
      * @param status 菜品的新状态，通常1表示启用，0表示禁用。
      * @param id     菜品的唯一标识ID。
+     * @return 因菜品停售而被同时停售的套餐所属的分类ID集合。
      */
     @Transactional
-    public void startOrStop(Integer status, Long id) {
-        // 构建菜品对象并设置状态和ID
-        Dish dish = Dish.builder()
-                .id(id)
-                .status(status)
-                .build();
-        // 更新数据库中的菜品状态
-        dishMapper.update(dish);
-        // 如果菜品被禁用
-        if (status == StatusConstant.DISABLE) {
-            // 获取包含当前菜品ID的列表
-            List<Long> dishIds = new ArrayList<>();
-            dishIds.add(id);
-            // 查询包含当前菜品ID的套餐ID列表
-            List<Long> setmealIds = setmealDishMapper.getSetmealIdsByDishIds(dishIds);
-            // 如果存在相关套餐
-            if (setmealIds != null && !setmealIds.isEmpty()) {
-                // 遍历套餐ID列表
-                for (Long setmealId : setmealIds) {
-                    // 构建套餐对象并设置禁用状态
-                    Setmeal setmeal = Setmeal.builder()
-                            .id(setmealId)
-                            .status(StatusConstant.DISABLE)
-                            .build();
-                    // 更新数据库中的套餐状态
-                    setmealMapper.update(setmeal);
-                }
-            }
+    public Set<Long> startOrStop(Integer status, Long id) {
+        return startOrStopBatch(status, Collections.singletonList(id));
+    }
+
+    /**
+     * 批量启用或禁用菜品，并在需要时更新相关套餐的状态。
+     *
+     * <p>此方法用一条UPDATE语句修改所有菜品的状态。如果菜品被禁用，一次查询出包含这些菜品且正在起售的套餐，
+     * 再用一条UPDATE语句将这些套餐全部停售。无论涉及多少菜品和套餐，都只执行固定数量的SQL语句，
+     * 适合售罄时集中下架大量菜品。
+     *
+     * @param status 菜品的新状态，通常1表示启用，0表示禁用。
+     * @param ids    菜品ID列表。
+     * @return 因菜品停售而被同时停售的套餐所属的分类ID集合，用于清除套餐缓存。
+     */
+    @Transactional
+    public Set<Long> startOrStopBatch(Integer status, List<Long> ids) {
+        // 没有要修改的菜品时直接返回，避免生成空的in ()语句
+        if (ids == null || ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        // 批量更新数据库中的菜品状态
+        dishMapper.updateStatusByIds(Dish.builder().status(status).build(), ids);
+        if (!StatusConstant.DISABLE.equals(status)) {
+            return new HashSet<>();
         }
+        // 菜品被禁用时，查询包含这些菜品且正在起售的套餐
+        List<Setmeal> setmeals = setmealMapper.getEnabledByDishIds(ids);
+        if (setmeals.isEmpty()) {
+            return new HashSet<>();
+        }
+        // 将这些套餐一次全部停售
+        List<Long> setmealIds = setmeals.stream().map(Setmeal::getId).collect(Collectors.toList());
+        setmealMapper.updateStatusByIds(Setmeal.builder().status(StatusConstant.DISABLE).build(), setmealIds);
+        return setmeals.stream().map(Setmeal::getCategoryId).collect(Collectors.toCollection(HashSet::new));
     }
 
     /**
@@ -245,9 +249,9 @@ public class DishServiceImpl implements DishService {
      * 列出包含风味信息的菜品视图对象列表。
      *
      * <p>此方法首先调用Mapper层的列表查询方法，获取所有符合条件的菜品列表。
-     * 然后，对于列表中的每个菜品，创建一个菜品视图对象{@code DishVO}，并将菜品信息复制到该视图对象中。
-     * 接着，查询与每个菜品ID关联的风味信息列表，并设置到视图对象中。
-     * 最后，返回包含所有菜品及其风味信息的视图对象列表。
+     * 然后，通过一次批量查询获取这些菜品的全部风味信息，并在内存中按菜品ID分组。
+     * 最后，为每个菜品创建一个菜品视图对象{@code DishVO}，设置对应的风味信息后返回。
+     * 无论菜品数量多少，都只执行两次查询。
      *
      * @param dish 查询条件的菜品对象。
      * @return 包含菜品及其风味信息的视图对象列表。
@@ -258,14 +262,18 @@ public class DishServiceImpl implements DishService {
         List<Dish> dishList = dishMapper.list(dish);
         // 创建视图对象列表
         List<DishVO> dishVOList = new ArrayList<>();
+        if (dishList == null || dishList.isEmpty()) {
+            return dishVOList;
+        }
+        // 一次查询出所有菜品的风味信息，并按菜品ID分组
+        List<Long> dishIds = dishList.stream().map(Dish::getId).collect(Collectors.toList());
+        Map<Long, List<DishFlavor>> flavorMap = dishFlavorMapper.getByDishIds(dishIds).stream()
+                .collect(Collectors.groupingBy(DishFlavor::getDishId));
         for (Dish d : dishList) {
             // 创建菜品视图对象并复制属性
-            DishVO dishVO = new DishVO();
-            BeanUtils.copyProperties(d, dishVO);
-            // 查询与菜品ID关联的风味信息列表
-            List<DishFlavor> flavors = dishFlavorMapper.getByDishId(d.getId());
+            DishVO dishVO = DishConverter.INSTANCE.toDishVO(d);
             // 将风味信息设置到视图对象中
-            dishVO.setFlavors(flavors);
+            dishVO.setFlavors(flavorMap.getOrDefault(d.getId(), new ArrayList<>()));
             // 将包含风味信息的视图对象添加到列表中
             dishVOList.add(dishVO);
         }
@@ -273,4 +281,19 @@ public class DishServiceImpl implements DishService {
         return dishVOList;
     }
 
-}
\ No newline at end of file
+    /**
+     * 根据菜品ID列表查询这些菜品所属的分类ID。
+     *
+     * @param ids 菜品ID列表。
+     * @return 去重后的分类ID集合。
+     */
+    public Set<Long> getCategoryIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return dishMapper.getByIds(ids).stream()
+                .map(Dish::getCategoryId)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+}
@@ -6,6 +6,7 @@ import com.sky.constant.MessageConstant;
 import com.sky.constant.PasswordConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.context.BaseContext;
+import com.sky.converter.EmployeeConverter;
 import com.sky.dto.EmployeeDTO;
 import com.sky.dto.EmployeeLoginDTO;
 import com.sky.dto.EmployeePageQueryDTO;
@@ -16,7 +17,6 @@ import com.sky.exception.PasswordErrorException;
 import com.sky.mapper.EmployeeMapper;
 import com.sky.result.PageResult;
 import com.sky.service.EmployeeService;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
@@ -69,8 +69,7 @@ public class EmployeeServiceImpl implements EmployeeService {
 
     @Override
     public void save(EmployeeDTO employeeDTO) {
-        Employee employee=new Employee();
-        BeanUtils.copyProperties(employeeDTO,employee);
+        Employee employee = EmployeeConverter.INSTANCE.toEmployee(employeeDTO);
         employee.setStatus(StatusConstant.ENABLE);
         employee.setPassword(DigestUtils.md5DigestAsHex(PasswordConstant.DEFAULT_PASSWORD.getBytes()));
         employeeMapper.insert(employee);
@@ -134,10 +133,8 @@ public class EmployeeServiceImpl implements EmployeeService {
      */
     @Override
     public void update(EmployeeDTO employeeDTO) {
-        // 创建员工实体对象
-        Employee employee = new Employee();
-        // 使用 BeanUtils 工具类复制 DTO 对象的属性到员工实体对象
-        BeanUtils.copyProperties(employeeDTO, employee);
+        // 复制 DTO 对象的属性到员工实体对象
+        Employee employee = EmployeeConverter.INSTANCE.toEmployee(employeeDTO);
         // 调用数据访问层更新员工信息
         employeeMapper.update(employee);
     }
@@ -0,0 +1,91 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.cache.LocalSnapshot;
+import com.sky.cache.SerializedBody;
+import com.sky.cache.SnapshotManager;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.result.Result;
+import com.sky.service.CategoryService;
+import com.sky.service.DishService;
+import com.sky.service.MenuService;
+import com.sky.service.SetmealService;
+import com.sky.vo.DishVO;
+import com.sky.vo.MenuVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 菜单服务实现类。
+ * <p>
+ * 整个菜单只在数据变化后构建一次：查询全部启用分类、起售菜品（口味批量查询）和起售套餐，
+ * 按与其他接口相同的格式序列化为JSON并压缩，保存在本地快照中，所有请求共用同一份字节。
+ */
+@Service
+@Slf4j
+public class MenuServiceImpl implements MenuService {
+
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private DishService dishService;
+    @Autowired
+    private SetmealService setmealService;
+    @Autowired
+    private SnapshotManager snapshotManager;
+
+    private LocalSnapshot<SerializedBody> menuSnapshot;
+
+    @PostConstruct
+    public void initSnapshot() {
+        menuSnapshot = snapshotManager.register(MENU_SNAPSHOT, this::buildMenu);
+    }
+
+    @Override
+    public SerializedBody getMenu() {
+        return menuSnapshot.get();
+    }
+
+    private SerializedBody buildMenu() {
+        List<Category> categories = categoryService.list(null);
+
+        Dish dish = new Dish();
+        dish.setStatus(StatusConstant.ENABLE);
+        Map<Long, List<DishVO>> dishes = dishService.listWithFlavor(dish).stream()
+                .filter(dishVO -> dishVO.getCategoryId() != null)
+                .collect(Collectors.groupingBy(DishVO::getCategoryId, LinkedHashMap::new, Collectors.toList()));
+
+        Setmeal setmeal = new Setmeal();
+        setmeal.setStatus(StatusConstant.ENABLE);
+        Map<Long, List<Setmeal>> setmeals = setmealService.list(setmeal).stream()
+                .filter(s -> s.getCategoryId() != null)
+                .collect(Collectors.groupingBy(Setmeal::getCategoryId, LinkedHashMap::new, Collectors.toList()));
+
+        MenuVO menuVO = MenuVO.builder()
+                .categories(categories)
+                .dishes(dishes)
+                .setmeals(setmeals)
+                .build();
+        try {
+            SerializedBody body = new SerializedBody(objectMapper.writeValueAsBytes(Result.success(menuVO)));
+            log.info("菜单快照已重建，ETag：{}，大小：{}字节", body.getEtag(), body.getJson().length);
+            return body;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("菜单序列化失败", e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.sky.service.impl;
+
+import com.sky.entity.OrderSearchSuffix;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.OrderSearchMapper;
+import com.sky.service.OrderSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单搜索服务实现类。
+ * <p>
+ * 下单时在同一事务中写入订单号和手机号的所有后缀，管理端按订单号或手机号包含搜索时
+ * 只需在后缀表的主键上做前缀匹配，不再对订单表做前导通配符的全表扫描。
+ * 订单号和手机号下单后不再修改，后缀只在插入时生成。上线前的历史订单由补建任务处理，
+ * 补建完成之前搜索仍使用原来的模糊匹配。
+ * <p>
+ * 滚动发布期间旧版本节点下单时不会建立后缀，因此只有在配置了sky.order.search-suffix-enabled=true
+ * （所有节点都已升级后再开启）的节点上，补建完成后才标记后缀表可用。
+ */
+@Service
+@Slf4j
+public class OrderSearchServiceImpl implements OrderSearchService {
+
+    /**
+     * 补建进度，保存已处理的最大订单id
+     */
+    private static final String BACKFILL_KEY = "order:search:backfill";
+    /**
+     * 历史订单已全部补建完成的标记
+     */
+    private static final String READY_KEY = "order:search:ready";
+
+    /**
+     * 补建锁，保证同一时间只有一个节点补建并写入进度
+     */
+    private static final String BACKFILL_LOCK_KEY = "order:search:backfill:lock";
+    private static final long BACKFILL_LOCK_SECONDS = 6 * 3600;
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private OrderSearchMapper orderSearchMapper;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 所有节点都已升级到下单时建立后缀的版本，关闭时只补建，不切换到后缀表
+     */
+    @Value("${sky.order.search-suffix-enabled:false}")
+    private boolean suffixEnabled;
+
+    /**
+     * 补建完成后不会再回到未完成状态，本节点确认完成后不再查询Redis
+     */
+    private volatile boolean indexReady;
+
+    public void index(List<Orders> ordersList) {
+        List<OrderSearchSuffix> suffixes = new ArrayList<>();
+        for (Orders orders : ordersList) {
+            addSuffixes(suffixes, OrderSearchSuffix.NUMBER, orders.getNumber(), orders.getId());
+            addSuffixes(suffixes, OrderSearchSuffix.PHONE, orders.getPhone(), orders.getId());
+        }
+        if (!suffixes.isEmpty()) {
+            orderSearchMapper.insertBatch(suffixes);
+        }
+    }
+
+    public int backfill() {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(BACKFILL_LOCK_KEY, token, BACKFILL_LOCK_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.info("其他节点正在补建订单搜索后缀，跳过本次执行");
+            return 0;
+        }
+        try {
+            return backfillLocked();
+        } finally {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(BACKFILL_LOCK_KEY), token);
+        }
+    }
+
+    private int backfillLocked() {
+        String progress = stringRedisTemplate.opsForValue().get(BACKFILL_KEY);
+        long lastId = progress == null ? 0 : Long.parseLong(progress);
+        int count = 0;
+        List<Orders> ordersList;
+        do {
+            ordersList = orderMapper.getForSearchIndex(lastId, BACKFILL_BATCH_SIZE);
+            if (ordersList.isEmpty()) {
+                break;
+            }
+            index(ordersList);
+            count += ordersList.size();
+            lastId = ordersList.get(ordersList.size() - 1).getId();
+            stringRedisTemplate.opsForValue().set(BACKFILL_KEY, String.valueOf(lastId));
+        } while (ordersList.size() == BACKFILL_BATCH_SIZE);
+        // 旧版本节点可能仍在写入没有后缀的订单，此时补建到末尾也不能切换到后缀表
+        if (suffixEnabled && !isIndexReady()) {
+            stringRedisTemplate.opsForValue().set(READY_KEY, "1");
+            indexReady = true;
+            log.info("历史订单搜索后缀补建完成");
+        }
+        return count;
+    }
+
+    public boolean isIndexReady() {
+        if (!suffixEnabled) {
+            return false;
+        }
+        if (!indexReady) {
+            indexReady = Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_KEY));
+        }
+        return indexReady;
+    }
+
+    private void addSuffixes(List<OrderSearchSuffix> suffixes, Integer field, String value, Long orderId) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i + MIN_SUFFIX_LENGTH <= value.length(); i++) {
+            suffixes.add(OrderSearchSuffix.builder()
+                    .field(field)
+                    .suffix(value.substring(i))
+                    .orderId(orderId)
+                    .build());
+        }
+    }
+}
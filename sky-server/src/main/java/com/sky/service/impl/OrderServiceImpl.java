@@ -7,41 +7,65 @@ import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.sky.constant.MessageConstant;
 import com.sky.context.BaseContext;
+import com.sky.converter.OrderConverter;
 import com.sky.dto.*;
 import com.sky.entity.*;
 import com.sky.exception.AddressBookBusinessException;
 import com.sky.exception.OrderBusinessException;
 import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.*;
+import com.sky.queue.OrderTimeoutQueue;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
+import com.sky.service.OrderSearchService;
 import com.sky.service.OrderService;
+import com.sky.service.PricingService;
+import com.sky.service.ShoppingCartService;
 import com.sky.utils.HttpClientUtil;
+import com.sky.utils.SnowflakeIdGenerator;
 import com.sky.utils.WeChatPayUtil;
+import com.sky.vo.CartPriceVO;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
 import com.sky.websocket.WebSocketServer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.DigestUtils;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
+    /**
+     * 游标分页未指定每页数量时的默认值
+     */
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final String CURSOR_SEPARATOR = "_";
+    /**
+     * 游标分页的订单总数缓存，按查询条件区分
+     */
+    private static final String COUNT_KEY_PREFIX = "order:count:";
+    private static final long COUNT_CACHE_SECONDS = 60;
+
     @Autowired
     private OrderMapper orderMapper;
     @Autowired
@@ -49,13 +73,27 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private AddressBookMapper addressBookMapper;
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private ShoppingCartService shoppingCartService;
     @Autowired
     private UserMapper userMapper;
     @Autowired
     private WeChatPayUtil weChatPayUtil;
     @Autowired
     private WebSocketServer webSocketServer;
+    @Autowired
+    private BusinessDailyMapper businessDailyMapper;
+    @Autowired
+    private OrderTimeoutQueue orderTimeoutQueue;
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+    @Autowired
+    private PricingService pricingService;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderSearchService orderSearchService;
+    @Autowired
+    private BusinessDailyService businessDailyService;
 
     /**
      * 用户下单
@@ -78,22 +116,29 @@ public class OrderServiceImpl implements OrderService {
         //查询当前用户的购物车数据
         Long userId = BaseContext.getCurrentId();
 
-        ShoppingCart shoppingCart = new ShoppingCart();
-        shoppingCart.setUserId(userId);
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
+        List<ShoppingCart> shoppingCartList = shoppingCartService.showShoppingCart();
 
         if(shoppingCartList == null || shoppingCartList.size() == 0){
             //抛出业务异常
             throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
         }
 
+        //按菜品和套餐的当前价格计算金额，以服务端的计算结果为准
+        CartPriceVO cartPrice = pricingService.price(shoppingCartList);
+        if (ordersSubmitDTO.getAmount() != null
+                && ordersSubmitDTO.getAmount().compareTo(cartPrice.getTotalAmount()) != 0) {
+            log.warn("用户{}下单金额与服务端计算结果不一致，提交：{}，计算：{}",
+                    userId, ordersSubmitDTO.getAmount(), cartPrice.getTotalAmount());
+        }
+
         //2. 向订单表插入1条数据
-        Orders orders = new Orders();
-        BeanUtils.copyProperties(ordersSubmitDTO, orders);
+        Orders orders = OrderConverter.INSTANCE.toOrders(ordersSubmitDTO);
+        orders.setAmount(cartPrice.getTotalAmount());
+        orders.setPackAmount(cartPrice.getPackAmount());
         orders.setOrderTime(LocalDateTime.now());
         orders.setPayStatus(Orders.UN_PAID);
         orders.setStatus(Orders.PENDING_PAYMENT);
-        orders.setNumber(String.valueOf(System.currentTimeMillis()));
+        orders.setNumber(String.valueOf(snowflakeIdGenerator.nextId()));
         orders.setAddress(addressBook.getDetail());
         orders.setPhone(addressBook.getPhone());
         orders.setConsignee(addressBook.getConsignee());
@@ -101,11 +146,22 @@ public class OrderServiceImpl implements OrderService {
 
         orderMapper.insert(orders);
 
+        //建立订单号和手机号的搜索后缀
+        orderSearchService.index(Collections.singletonList(orders));
+
+        //事务提交后累加当天的订单总数，不在下单事务中持有当天汇总记录的行锁
+        businessDailyService.incrementAfterCommit(DailyStatisticsDTO.builder()
+                .date(orders.getOrderTime().toLocalDate())
+                .orderCount(1)
+                .build());
+
+        //加入超时队列，超过支付时间仍未支付时自动取消
+        orderTimeoutQueue.add(orders.getId(), orders.getOrderTime());
+
         List<OrderDetail> orderDetailList = new ArrayList<>();
         //3. 向订单明细表插入n条数据
-        for (ShoppingCart cart : shoppingCartList) {
-            OrderDetail orderDetail = new OrderDetail();//订单明细
-            BeanUtils.copyProperties(cart, orderDetail);
+        for (ShoppingCart cart : cartPrice.getItems()) {
+            OrderDetail orderDetail = OrderConverter.INSTANCE.toOrderDetail(cart);//订单明细
             orderDetail.setOrderId(orders.getId());//设置当前订单明细关联的订单id
             orderDetailList.add(orderDetail);
         }
@@ -113,7 +169,7 @@ public class OrderServiceImpl implements OrderService {
         orderDetailMapper.insertBatch(orderDetailList);
 
         //4. 清空当前用户的购物车数据
-        shoppingCartMapper.deleteByUserId(userId);
+        shoppingCartService.cleanShoppingCart();
 
         //5. 封装VO返回结果
         OrderSubmitVO orderSubmitVO = OrderSubmitVO.builder()
@@ -248,6 +304,9 @@ public class OrderServiceImpl implements OrderService {
 
         orderMapper.update(orders);
 
+        //已支付的订单移出超时队列
+        orderTimeoutQueue.remove(ordersDB.getId());
+
         //通过websocket向客户端浏览器推送消息 type orderId content
         Map map = new HashMap();
         map.put("type",1); // 1表示来单提醒 2表示客户催单
@@ -266,35 +325,32 @@ public class OrderServiceImpl implements OrderService {
      * @param status
      * @return
      */
-    public PageResult pageQuery4User(int pageNum, int pageSize, Integer status) {
-        // 设置分页
-        PageHelper.startPage(pageNum, pageSize);
-
+    public PageResult pageQuery4User(int pageNum, int pageSize, Integer status, String cursor) {
         OrdersPageQueryDTO ordersPageQueryDTO = new OrdersPageQueryDTO();
+        ordersPageQueryDTO.setPage(pageNum);
+        ordersPageQueryDTO.setPageSize(pageSize);
         ordersPageQueryDTO.setUserId(BaseContext.getCurrentId());
         ordersPageQueryDTO.setStatus(status);
+        ordersPageQueryDTO.setCursor(cursor);
 
         // 分页条件查询
-        Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
+        PageResult pageResult = query(ordersPageQueryDTO);
+        List<Orders> ordersList = pageResult.getRecords();
 
         List<OrderVO> list = new ArrayList();
 
-        // 查询出订单明细，并封装入OrderVO进行响应
-        if (page != null && page.getTotal() > 0) {
-            for (Orders orders : page) {
-                Long orderId = orders.getId();// 订单id
-
-                // 查询订单明细
-                List<OrderDetail> orderDetails = orderDetailMapper.getByOrderId(orderId);
-
-                OrderVO orderVO = new OrderVO();
-                BeanUtils.copyProperties(orders, orderVO);
-                orderVO.setOrderDetailList(orderDetails);
+        // 一次查询出当前页所有订单的明细，并封装入OrderVO进行响应
+        if (!CollectionUtils.isEmpty(ordersList)) {
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
+            for (Orders orders : ordersList) {
+                OrderVO orderVO = OrderConverter.INSTANCE.toOrderVO(orders);
+                orderVO.setOrderDetailList(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 list.add(orderVO);
             }
         }
-        return new PageResult(page.getTotal(), list);
+        pageResult.setRecords(list);
+        return pageResult;
     }
 
     /**
@@ -311,8 +367,7 @@ public class OrderServiceImpl implements OrderService {
         List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
 
         // 将该订单及其详情封装到OrderVO并返回
-        OrderVO orderVO = new OrderVO();
-        BeanUtils.copyProperties(orders, orderVO);
+        OrderVO orderVO = OrderConverter.INSTANCE.toOrderVO(orders);
         orderVO.setOrderDetailList(orderDetailList);
 
         return orderVO;
@@ -361,11 +416,12 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 再来一单
+     * 再来一单，已停售或已删除的商品跳过，其余商品按当前价格加入购物车
      *
      * @param id
+     * @return 未加入购物车的商品名称
      */
-    public void repetition(Long id) {
+    public List<String> repetition(Long id) {
         // 查询当前用户id
         Long userId = BaseContext.getCurrentId();
 
@@ -373,19 +429,23 @@ public class OrderServiceImpl implements OrderService {
         List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(id);
 
         // 将订单详情对象转换为购物车对象
+        LocalDateTime now = LocalDateTime.now();
         List<ShoppingCart> shoppingCartList = orderDetailList.stream().map(x -> {
-            ShoppingCart shoppingCart = new ShoppingCart();
-
-            // 将原订单详情里面的菜品信息重新复制到购物车对象中
-            BeanUtils.copyProperties(x, shoppingCart, "id");
+            ShoppingCart shoppingCart = OrderConverter.INSTANCE.toShoppingCart(x);
             shoppingCart.setUserId(userId);
-            shoppingCart.setCreateTime(LocalDateTime.now());
-
+            shoppingCart.setCreateTime(now);
             return shoppingCart;
         }).collect(Collectors.toList());
 
-        // 将购物车对象批量添加到数据库
-        shoppingCartMapper.insertBatch(shoppingCartList);
+        // 按当前价格重新计价后批量添加到购物车，名称、图片和单价以最新数据为准
+        CartPriceVO cartPriceVO = pricingService.price(shoppingCartList, true);
+        List<String> unavailableNames = cartPriceVO.getUnavailableItems().stream()
+                .map(ShoppingCart::getName).collect(Collectors.toList());
+        if (cartPriceVO.getItems().isEmpty() && !unavailableNames.isEmpty()) {
+            throw new OrderBusinessException(MessageConstant.REPETITION_ITEMS_UNAVAILABLE);
+        }
+        shoppingCartService.addBatch(cartPriceVO.getItems());
+        return unavailableNames;
     }
 
     /**
@@ -395,27 +455,93 @@ public class OrderServiceImpl implements OrderService {
      * @return
      */
     public PageResult conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO) {
-        PageHelper.startPage(ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize());
-
-        Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
+        PageResult pageResult = query(ordersPageQueryDTO);
 
         // 部分订单状态，需要额外返回订单菜品信息，将Orders转化为OrderVO
-        List<OrderVO> orderVOList = getOrderVOList(page);
+        List<OrderVO> orderVOList = getOrderVOList(pageResult.getRecords());
+
+        pageResult.setRecords(orderVOList);
+        return pageResult;
+    }
 
-        return new PageResult(page.getTotal(), orderVOList);
+    /**
+     * 订单分页查询，cursor为null时使用页码分页，否则使用游标分页
+     *
+     * @param ordersPageQueryDTO 查询条件
+     * @return 当前页的订单，游标分页时同时返回下一页的游标
+     */
+    private PageResult query(OrdersPageQueryDTO ordersPageQueryDTO) {
+        // 历史订单的搜索后缀回填完成之前，按订单号、手机号搜索仍使用原来的模糊匹配
+        ordersPageQueryDTO.setSuffixSearch(orderSearchService.isIndexReady());
+        if (ordersPageQueryDTO.getCursor() == null) {
+            PageHelper.startPage(ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize());
+            Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
+            return new PageResult(page.getTotal(), page.getResult());
+        }
+
+        // 游标分页：从上一页最后一条订单之后读取，多取一条判断是否还有下一页
+        if (ordersPageQueryDTO.getPageSize() <= 0) {
+            ordersPageQueryDTO.setPageSize(DEFAULT_PAGE_SIZE);
+        }
+        parseCursor(ordersPageQueryDTO);
+        List<Orders> ordersList = orderMapper.pageQueryAfter(ordersPageQueryDTO);
+        String nextCursor = null;
+        if (ordersList.size() > ordersPageQueryDTO.getPageSize()) {
+            ordersList = ordersList.subList(0, ordersPageQueryDTO.getPageSize());
+            Orders last = ordersList.get(ordersList.size() - 1);
+            nextCursor = last.getOrderTime() + CURSOR_SEPARATOR + last.getId();
+        }
+        return new CursorPageResult(countWithCache(ordersPageQueryDTO), ordersList, nextCursor);
+    }
+
+    /**
+     * 解析游标，格式为"下单时间_订单id"，空字符串表示第一页
+     */
+    private void parseCursor(OrdersPageQueryDTO ordersPageQueryDTO) {
+        String cursor = ordersPageQueryDTO.getCursor();
+        ordersPageQueryDTO.setLastOrderTime(null);
+        ordersPageQueryDTO.setLastId(null);
+        if (cursor.isEmpty()) {
+            return;
+        }
+        int index = cursor.lastIndexOf(CURSOR_SEPARATOR);
+        try {
+            ordersPageQueryDTO.setLastOrderTime(LocalDateTime.parse(cursor.substring(0, index)));
+            ordersPageQueryDTO.setLastId(Long.valueOf(cursor.substring(index + 1)));
+        } catch (RuntimeException e) {
+            throw new OrderBusinessException(MessageConstant.PAGE_CURSOR_INVALID);
+        }
+    }
+
+    /**
+     * 统计满足条件的订单总数，结果按查询条件在Redis中缓存一段时间，翻页时不再重复count
+     */
+    private long countWithCache(OrdersPageQueryDTO ordersPageQueryDTO) {
+        String condition = ordersPageQueryDTO.getUserId() + "|" + ordersPageQueryDTO.getStatus() + "|"
+                + ordersPageQueryDTO.getNumber() + "|" + ordersPageQueryDTO.getPhone() + "|"
+                + ordersPageQueryDTO.getBeginTime() + "|" + ordersPageQueryDTO.getEndTime();
+        String key = COUNT_KEY_PREFIX + DigestUtils.md5DigestAsHex(condition.getBytes(StandardCharsets.UTF_8));
+        String cached = stringRedisTemplate.opsForValue().get(key);
+        if (cached != null) {
+            return Long.parseLong(cached);
+        }
+        Long count = orderMapper.countByQuery(ordersPageQueryDTO);
+        long total = count == null ? 0 : count;
+        stringRedisTemplate.opsForValue().set(key, String.valueOf(total), COUNT_CACHE_SECONDS, TimeUnit.SECONDS);
+        return total;
     }
 
-    private List<OrderVO> getOrderVOList(Page<Orders> page) {
+    private List<OrderVO> getOrderVOList(List<Orders> ordersList) {
         // 需要返回订单菜品信息，自定义OrderVO响应结果
         List<OrderVO> orderVOList = new ArrayList<>();
 
-        List<Orders> ordersList = page.getResult();
         if (!CollectionUtils.isEmpty(ordersList)) {
+            // 一次查询出当前页所有订单的菜品详情
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
             for (Orders orders : ordersList) {
                 // 将共同字段复制到OrderVO
-                OrderVO orderVO = new OrderVO();
-                BeanUtils.copyProperties(orders, orderVO);
-                String orderDishes = getOrderDishesStr(orders);
+                OrderVO orderVO = OrderConverter.INSTANCE.toOrderVO(orders);
+                String orderDishes = getOrderDishesStr(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 // 将订单菜品信息封装到orderVO中，并添加到orderVOList
                 orderVO.setOrderDishes(orderDishes);
@@ -426,15 +552,27 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 根据订单id获取菜品信息字符串
+     * 批量查询多个订单的明细，并按订单id分组
      *
-     * @param orders
+     * @param ordersList
      * @return
      */
-    private String getOrderDishesStr(Orders orders) {
-        // 查询订单菜品详情信息（订单中的菜品和数量）
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
+    private Map<Long, List<OrderDetail>> getOrderDetailMap(List<Orders> ordersList) {
+        List<Long> orderIds = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        if (orderIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return orderDetailMapper.getByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+    }
 
+    /**
+     * 根据订单明细获取菜品信息字符串
+     *
+     * @param orderDetailList
+     * @return
+     */
+    private String getOrderDishesStr(List<OrderDetail> orderDetailList) {
         // 将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*3；）
         List<String> orderDishList = orderDetailList.stream().map(x -> {
             String orderDish = x.getName() + "*" + x.getNumber() + ";";
@@ -451,16 +589,17 @@ public class OrderServiceImpl implements OrderService {
      * @return
      */
     public OrderStatisticsVO statistics() {
-        // 根据状态，分别查询出待接单、待派送、派送中的订单数量
-        Integer toBeConfirmed = orderMapper.countStatus(Orders.TO_BE_CONFIRMED);
-        Integer confirmed = orderMapper.countStatus(Orders.CONFIRMED);
-        Integer deliveryInProgress = orderMapper.countStatus(Orders.DELIVERY_IN_PROGRESS);
+        // 一次分组查询出待接单、待派送、派送中的订单数量
+        Map<Integer, Integer> counts = orderMapper.countGroupByStatus(null, Arrays.asList(
+                        Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS))
+                .stream()
+                .collect(Collectors.toMap(StatusCountDTO::getStatus, StatusCountDTO::getCount));
 
-        // 将查询出的数据封装到orderStatisticsVO中响应
+        // 将查询出的数据封装到orderStatisticsVO中响应，没有订单的状态数量为0
         OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
-        orderStatisticsVO.setToBeConfirmed(toBeConfirmed);
-        orderStatisticsVO.setConfirmed(confirmed);
-        orderStatisticsVO.setDeliveryInProgress(deliveryInProgress);
+        orderStatisticsVO.setToBeConfirmed(counts.getOrDefault(Orders.TO_BE_CONFIRMED, 0));
+        orderStatisticsVO.setConfirmed(counts.getOrDefault(Orders.CONFIRMED, 0));
+        orderStatisticsVO.setDeliveryInProgress(counts.getOrDefault(Orders.DELIVERY_IN_PROGRESS, 0));
         return orderStatisticsVO;
     }
 
@@ -519,6 +658,7 @@ public class OrderServiceImpl implements OrderService {
      *
      * @param ordersCancelDTO
      */
+    @Transactional
     public void cancel(OrdersCancelDTO ordersCancelDTO) throws Exception {
         // 根据id查询订单
         Orders ordersDB = orderMapper.getById(ordersCancelDTO.getId());
@@ -542,6 +682,15 @@ public class OrderServiceImpl implements OrderService {
         orders.setCancelReason(ordersCancelDTO.getCancelReason());
         orders.setCancelTime(LocalDateTime.now());
         orderMapper.update(orders);
+
+        // 已完成的订单被取消时，从下单当天的汇总数据中扣除有效订单数和营业额
+        if (Orders.COMPLETED.equals(ordersDB.getStatus())) {
+            businessDailyMapper.increment(DailyStatisticsDTO.builder()
+                    .date(ordersDB.getOrderTime().toLocalDate())
+                    .validOrderCount(-1)
+                    .turnover(-ordersDB.getAmount().doubleValue())
+                    .build());
+        }
     }
 
     /**
@@ -571,6 +720,7 @@ public class OrderServiceImpl implements OrderService {
      *
      * @param id
      */
+    @Transactional
     public void complete(Long id) {
         // 根据id查询订单
         Orders ordersDB = orderMapper.getById(id);
@@ -587,6 +737,13 @@ public class OrderServiceImpl implements OrderService {
         orders.setDeliveryTime(LocalDateTime.now());
 
         orderMapper.update(orders);
+
+        // 累加下单当天的有效订单数和营业额
+        businessDailyMapper.increment(DailyStatisticsDTO.builder()
+                .date(ordersDB.getOrderTime().toLocalDate())
+                .validOrderCount(1)
+                .turnover(ordersDB.getAmount().doubleValue())
+                .build());
     }
 
     /**
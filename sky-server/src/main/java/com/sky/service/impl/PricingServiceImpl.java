@@ -0,0 +1,132 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.entity.ShoppingCart;
+import com.sky.exception.ShoppingCartBusinessException;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.service.PricingService;
+import com.sky.vo.CartPriceVO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 订单计价服务实现类。
+ * <p>
+ * 菜品和套餐各用一次批量查询获取当前的名称、图片、单价和售卖状态，
+ * 使用BigDecimal计算商品金额、打包费和总金额，下单、再来一单和购物车预览共用同一套计价逻辑。
+ */
+@Service
+public class PricingServiceImpl implements PricingService {
+
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    /**
+     * 每份商品的打包费，单位元
+     */
+    @Value("${sky.order.pack-fee:1}")
+    private int packFee;
+
+    /**
+     * 每单配送费，单位元
+     */
+    @Value("${sky.order.delivery-fee:6}")
+    private BigDecimal deliveryFee;
+
+    @Override
+    public CartPriceVO price(List<ShoppingCart> items) {
+        return price(items, false);
+    }
+
+    @Override
+    public CartPriceVO price(List<ShoppingCart> items, boolean skipUnavailable) {
+        List<Long> dishIds = items.stream().map(ShoppingCart::getDishId)
+                .filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        List<Long> setmealIds = items.stream().filter(item -> item.getDishId() == null)
+                .map(ShoppingCart::getSetmealId).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+
+        // 菜品和套餐各批量查询一次
+        Map<Long, Dish> dishMap = dishIds.isEmpty() ? Collections.emptyMap()
+                : dishMapper.getByIds(dishIds).stream().collect(Collectors.toMap(Dish::getId, Function.identity()));
+        Map<Long, Setmeal> setmealMap = setmealIds.isEmpty() ? Collections.emptyMap()
+                : setmealMapper.getByIds(setmealIds).stream().collect(Collectors.toMap(Setmeal::getId, Function.identity()));
+
+        List<ShoppingCart> pricedItems = new ArrayList<>(items.size());
+        List<ShoppingCart> unavailableItems = new ArrayList<>();
+        BigDecimal itemAmount = BigDecimal.ZERO;
+        int count = 0;
+        for (ShoppingCart item : items) {
+            int number = item.getNumber() == null ? 1 : item.getNumber();
+            ShoppingCart priced = ShoppingCart.builder()
+                    .id(item.getId())
+                    .userId(item.getUserId())
+                    .dishId(item.getDishId())
+                    .setmealId(item.getSetmealId())
+                    .dishFlavor(item.getDishFlavor())
+                    .number(number)
+                    .createTime(item.getCreateTime())
+                    .build();
+            if (item.getDishId() != null) {
+                Dish dish = dishMap.get(item.getDishId());
+                if (dish == null || !StatusConstant.ENABLE.equals(dish.getStatus())) {
+                    unavailable(item, unavailableItems, skipUnavailable);
+                    continue;
+                }
+                priced.setName(dish.getName());
+                priced.setImage(dish.getImage());
+                priced.setAmount(dish.getPrice());
+            } else {
+                Setmeal setmeal = setmealMap.get(item.getSetmealId());
+                if (setmeal == null || !StatusConstant.ENABLE.equals(setmeal.getStatus())) {
+                    unavailable(item, unavailableItems, skipUnavailable);
+                    continue;
+                }
+                priced.setName(setmeal.getName());
+                priced.setImage(setmeal.getImage());
+                priced.setAmount(setmeal.getPrice());
+            }
+            itemAmount = itemAmount.add(priced.getAmount().multiply(BigDecimal.valueOf(number)));
+            count += number;
+            pricedItems.add(priced);
+        }
+
+        int packAmount = count * packFee;
+        BigDecimal totalAmount = itemAmount.add(BigDecimal.valueOf(packAmount)).add(deliveryFee)
+                .setScale(2, RoundingMode.HALF_UP);
+        return CartPriceVO.builder()
+                .items(pricedItems)
+                .itemAmount(itemAmount.setScale(2, RoundingMode.HALF_UP))
+                .packAmount(packAmount)
+                .deliveryFee(deliveryFee.setScale(2, RoundingMode.HALF_UP))
+                .totalAmount(totalAmount)
+                .unavailableItems(unavailableItems)
+                .build();
+    }
+
+    /**
+     * 处理已停售或已删除的商品：允许跳过时记录下来，否则拒绝计价
+     */
+    private void unavailable(ShoppingCart item, List<ShoppingCart> unavailableItems, boolean skipUnavailable) {
+        if (!skipUnavailable) {
+            throw new ShoppingCartBusinessException(MessageConstant.CART_ITEM_UNAVAILABLE);
+        }
+        unavailableItems.add(item);
+    }
+}
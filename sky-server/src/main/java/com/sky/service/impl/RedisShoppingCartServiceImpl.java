@@ -0,0 +1,445 @@
+package com.sky.service.impl;
+
+import com.sky.context.BaseContext;
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.service.ShoppingCartService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis的购物车服务实现类，默认启用。
+ * <p>
+ * 每个用户的购物车保存在两个Redis哈希中，字段为商品标识（菜品id加口味或套餐id）：
+ * <ul>
+ *     <li>cart:{userId}:number 保存商品数量，增减使用HINCRBY原子操作；</li>
+ *     <li>cart:{userId}:item 保存商品的名称、图片和单价，首次加入时查询一次后缓存。</li>
+ * </ul>
+ * 增减商品只访问Redis，不访问数据库。商品信息和数量的修改都在同一个Lua脚本中完成，两个哈希始终保持一致。
+ * 长时间未操作的购物车由定时任务写入MySQL并从Redis移除，用户再次访问时再从MySQL加载回Redis。
+ * 启用Redis购物车之前保存在MySQL中的购物车，启动时登记为待加载，同样在用户访问时加载回Redis。
+ */
+@Service
+@ConditionalOnProperty(name = "sky.cart.store", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class RedisShoppingCartServiceImpl implements ShoppingCartService {
+
+    private static final String KEY_PREFIX = "cart:";
+    private static final String NUMBER_SUFFIX = ":number";
+    private static final String ITEM_SUFFIX = ":item";
+    /**
+     * 记录每个用户最后一次修改购物车的时间，用于找出长时间未操作的购物车
+     */
+    private static final String ACTIVE_KEY = "cart:active";
+    /**
+     * 购物车已写入MySQL、尚未加载回Redis的用户
+     */
+    private static final String EVICTED_KEY = "cart:evicted";
+
+    /**
+     * 写入MySQL的定时任务在多个节点之间互斥执行的锁
+     */
+    private static final String EVICT_LOCK_KEY = "cart:evict:lock";
+    /**
+     * 正在写入MySQL的购物车被移动到的临时key的后缀
+     */
+    private static final String EVICTING_SUFFIX = ":evicting";
+
+    private static final int EVICT_BATCH_SIZE = 500;
+    private static final long EVICT_LOCK_SECONDS = 1800;
+    /**
+     * 临时key的过期时间，写入MySQL的过程异常中断时临时key自动删除，不会被重复写入
+     */
+    private static final long EVICTING_TTL_SECONDS = 3600;
+
+    /**
+     * 数量增加指定值，商品信息不存在时写入商品信息；
+     * 没有商品信息且未传入商品信息时返回-1，由调用方查询商品信息后重试
+     */
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[2], ARGV[1]) == 0 then " +
+                    "if ARGV[2] == '' then return -1 end " +
+                    "redis.call('hset', KEYS[2], ARGV[1], ARGV[2]) end " +
+                    "return redis.call('hincrby', KEYS[1], ARGV[1], ARGV[3])",
+            Long.class);
+
+    /**
+     * 从MySQL加载回Redis时在Redis中已有的数量上累加，加载前用户刚添加到Redis的商品不会被覆盖
+     */
+    private static final RedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('hsetnx', KEYS[2], ARGV[1], ARGV[2]) " +
+                    "return redis.call('hincrby', KEYS[1], ARGV[1], ARGV[3])",
+            Long.class);
+
+    /**
+     * 购物车在被选中后没有再修改时，将其移动到临时key并移出活跃集合，返回1；
+     * 购物车已被修改或已被其他节点处理时返回0
+     */
+    private static final RedisScript<Long> MOVE_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('zscore', KEYS[1], ARGV[1]) " +
+                    "if not score or tonumber(score) > tonumber(ARGV[2]) then return 0 end " +
+                    "redis.call('zrem', KEYS[1], ARGV[1]) " +
+                    "if redis.call('exists', KEYS[2]) == 0 then redis.call('del', KEYS[3]) return 0 end " +
+                    "redis.call('rename', KEYS[2], KEYS[4]) " +
+                    "redis.call('expire', KEYS[4], ARGV[3]) " +
+                    "if redis.call('exists', KEYS[3]) == 1 then " +
+                    "redis.call('rename', KEYS[3], KEYS[5]) " +
+                    "redis.call('expire', KEYS[5], ARGV[3]) end " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 只有锁的值与加锁时的标识一致才删除
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 数量减1，减到0时同时删除数量和商品信息
+     */
+    private static final RedisScript<Long> SUB_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then return -1 end " +
+                    "local n = redis.call('hincrby', KEYS[1], ARGV[1], -1) " +
+                    "if n <= 0 then redis.call('hdel', KEYS[1], ARGV[1]) redis.call('hdel', KEYS[2], ARGV[1]) end " +
+                    "return n",
+            Long.class);
+
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    @Autowired
+    private RedisTemplate<Object, Object> redisTemplate;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    /**
+     * 购物车超过该天数未操作时写入MySQL并从Redis移除
+     */
+    @Value("${sky.cart.idle-days:7}")
+    private int idleDays;
+
+    /**
+     * 在项目启动时，将MySQL中已有购物车的用户登记为待加载。
+     * 这些购物车可能是启用Redis购物车之前保存的，也可能是之前写入MySQL的，用户下次访问时加载回Redis。
+     */
+    @PostConstruct
+    public void registerStoredCarts() {
+        List<Long> userIds = shoppingCartMapper.listUserIds();
+        for (int i = 0; i < userIds.size(); i += EVICT_BATCH_SIZE) {
+            String[] ids = userIds.subList(i, Math.min(i + EVICT_BATCH_SIZE, userIds.size()))
+                    .stream().map(String::valueOf).toArray(String[]::new);
+            stringRedisTemplate.opsForSet().add(EVICTED_KEY, ids);
+        }
+        log.info("MySQL中待加载回Redis的购物车：{}个", userIds.size());
+    }
+
+    /**
+     * 添加商品到购物车。
+     * <p>
+     * 商品已在购物车中时只执行一次Lua脚本对数量加1；商品第一次加入购物车时查询一次名称、图片和单价，
+     * 再通过同一个脚本写入商品信息并对数量加1，与减少商品的脚本不会交错执行。
+     *
+     * @param shoppingCartDTO 包含添加到购物车的商品信息的数据传输对象。
+     */
+    @Override
+    public void addShoppingCart(ShoppingCartDTO shoppingCartDTO) {
+        Long userId = BaseContext.getCurrentId();
+        restoreIfEvicted(userId);
+
+        String field = field(shoppingCartDTO.getDishId(), shoppingCartDTO.getDishFlavor(), shoppingCartDTO.getSetmealId());
+        if (add(userId, field, null, 1) < 0) {
+            ShoppingCart item = ShoppingCart.builder()
+                    .userId(userId)
+                    .dishId(shoppingCartDTO.getDishId())
+                    .setmealId(shoppingCartDTO.getSetmealId())
+                    .dishFlavor(shoppingCartDTO.getDishFlavor())
+                    .createTime(LocalDateTime.now())
+                    .build();
+            fillItemInfo(item);
+            add(userId, field, item, 1);
+        }
+        touch(userId);
+    }
+
+    /**
+     * 展示用户的购物车商品列表，按加入时间排序。
+     *
+     * @return 用户购物车中的商品列表。
+     */
+    @Override
+    public List<ShoppingCart> showShoppingCart() {
+        Long userId = BaseContext.getCurrentId();
+        restoreIfEvicted(userId);
+        return readCart(numberKey(userId), itemKey(userId));
+    }
+
+    /**
+     * 清理用户的购物车。
+     */
+    @Override
+    public void cleanShoppingCart() {
+        Long userId = BaseContext.getCurrentId();
+        stringRedisTemplate.delete(Arrays.asList(numberKey(userId), itemKey(userId)));
+        stringRedisTemplate.opsForZSet().remove(ACTIVE_KEY, userId.toString());
+        Long evicted = stringRedisTemplate.opsForSet().remove(EVICTED_KEY, userId.toString());
+        if (evicted != null && evicted > 0) {
+            shoppingCartMapper.deleteByUserId(userId);
+        }
+    }
+
+    /**
+     * 从购物车中减去商品数量，数量减到0时删除该商品。
+     * 减少和删除在同一个Lua脚本中完成，并发操作不会出现负数。
+     *
+     * @param shoppingCartDTO 包含购物车商品信息的数据传输对象。
+     */
+    @Override
+    public void subShoppingCart(ShoppingCartDTO shoppingCartDTO) {
+        Long userId = BaseContext.getCurrentId();
+        restoreIfEvicted(userId);
+
+        String field = field(shoppingCartDTO.getDishId(), shoppingCartDTO.getDishFlavor(), shoppingCartDTO.getSetmealId());
+        stringRedisTemplate.execute(SUB_SCRIPT, Arrays.asList(numberKey(userId), itemKey(userId)), field);
+        touch(userId);
+    }
+
+    /**
+     * 批量添加商品到购物车，已有的商品累加数量。
+     * 传入的记录已包含名称、图片和单价，不再查询数据库。
+     *
+     * @param shoppingCartList 要添加的购物车记录列表。
+     */
+    @Override
+    public void addBatch(List<ShoppingCart> shoppingCartList) {
+        if (shoppingCartList == null || shoppingCartList.isEmpty()) {
+            return;
+        }
+        Long userId = BaseContext.getCurrentId();
+        restoreIfEvicted(userId);
+        for (ShoppingCart shoppingCart : shoppingCartList) {
+            String field = field(shoppingCart.getDishId(), shoppingCart.getDishFlavor(), shoppingCart.getSetmealId());
+            int number = shoppingCart.getNumber() == null ? 1 : shoppingCart.getNumber();
+            add(userId, field, toItem(userId, shoppingCart), number);
+        }
+        touch(userId);
+    }
+
+    /**
+     * 定时任务：将长时间未操作的购物车写入MySQL并从Redis移除，控制Redis内存占用
+     * 每天凌晨3点执行一次，多个节点之间通过Redis锁保证同一时间只有一个节点执行
+     */
+    @Scheduled(cron = "0 0 3 * * ? ")
+    public void evictIdleCarts() {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(EVICT_LOCK_KEY, token, EVICT_LOCK_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.info("其他节点正在将购物车写入MySQL，跳过本次执行");
+            return;
+        }
+        try {
+            long before = System.currentTimeMillis() - idleDays * 24L * 3600 * 1000;
+            int count = 0;
+            Set<String> userIds;
+            do {
+                userIds = stringRedisTemplate.opsForZSet().rangeByScore(ACTIVE_KEY, 0, before, 0, EVICT_BATCH_SIZE);
+                if (userIds == null) {
+                    break;
+                }
+                for (String id : userIds) {
+                    if (evict(Long.valueOf(id), before)) {
+                        count++;
+                    }
+                }
+            } while (userIds.size() == EVICT_BATCH_SIZE);
+            log.info("长时间未操作的购物车写入MySQL：{}个", count);
+        } finally {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(EVICT_LOCK_KEY), token);
+        }
+    }
+
+    /**
+     * 将一个购物车写入MySQL。
+     * <p>
+     * 先通过Lua脚本把购物车原子地移动到临时key，之后的添加操作写入新的key，不会在写入MySQL的过程中丢失；
+     * 临时key中的购物车只会被写入一次。用户之前写入MySQL、尚未加载的记录保留，相同商品累加数量。
+     *
+     * @return 购物车被写入MySQL时返回true
+     */
+    private boolean evict(Long userId, long before) {
+        String evictingNumberKey = numberKey(userId) + EVICTING_SUFFIX;
+        String evictingItemKey = itemKey(userId) + EVICTING_SUFFIX;
+        Long moved = stringRedisTemplate.execute(MOVE_SCRIPT,
+                Arrays.asList(ACTIVE_KEY, numberKey(userId), itemKey(userId), evictingNumberKey, evictingItemKey),
+                userId.toString(), String.valueOf(before), String.valueOf(EVICTING_TTL_SECONDS));
+        if (moved == null || moved == 0) {
+            return false;
+        }
+        List<ShoppingCart> cart = readCart(evictingNumberKey, evictingItemKey);
+        if (!cart.isEmpty()) {
+            shoppingCartMapper.insertBatch(cart);
+            stringRedisTemplate.opsForSet().add(EVICTED_KEY, userId.toString());
+        }
+        stringRedisTemplate.delete(Arrays.asList(evictingNumberKey, evictingItemKey));
+        return true;
+    }
+
+    /**
+     * 购物车之前被写入MySQL时，加载回Redis并删除MySQL中的记录。
+     * 通过SREM的返回值保证只有一个请求执行加载，同一条记录只会被加载一次；
+     * 加载时累加数量，与加载前已写入Redis的同一商品合并。
+     */
+    private void restoreIfEvicted(Long userId) {
+        Long removed = stringRedisTemplate.opsForSet().remove(EVICTED_KEY, userId.toString());
+        if (removed == null || removed == 0) {
+            return;
+        }
+        List<ShoppingCart> cart = shoppingCartMapper.list(ShoppingCart.builder().userId(userId).build());
+        for (ShoppingCart shoppingCart : cart) {
+            String field = field(shoppingCart.getDishId(), shoppingCart.getDishFlavor(), shoppingCart.getSetmealId());
+            int number = shoppingCart.getNumber() == null ? 1 : shoppingCart.getNumber();
+            redisTemplate.execute(RESTORE_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                    Arrays.<Object>asList(numberKey(userId), itemKey(userId)),
+                    bytes(field), itemSerializer().serialize(toItem(userId, shoppingCart)), bytes(String.valueOf(number)));
+        }
+        if (!cart.isEmpty()) {
+            touch(userId);
+        }
+        shoppingCartMapper.deleteByUserId(userId);
+        log.info("用户{}的购物车从MySQL加载回Redis：{}项", userId, cart.size());
+    }
+
+    /**
+     * 执行添加脚本，商品信息为null时只在购物车已有该商品时增加数量
+     *
+     * @return 增加后的数量，购物车中没有该商品且未传入商品信息时返回-1
+     */
+    private long add(Long userId, String field, ShoppingCart item, int number) {
+        byte[] itemBytes = item == null ? new byte[0] : itemSerializer().serialize(item);
+        Long result = redisTemplate.execute(ADD_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                Arrays.<Object>asList(numberKey(userId), itemKey(userId)),
+                bytes(field), itemBytes, bytes(String.valueOf(number)));
+        return result == null ? -1 : result;
+    }
+
+    private List<ShoppingCart> readCart(String numberKey, String itemKey) {
+        Map<Object, Object> numbers = stringRedisTemplate.opsForHash().entries(numberKey);
+        List<ShoppingCart> list = new ArrayList<>();
+        if (numbers.isEmpty()) {
+            return list;
+        }
+        Map<Object, Object> items = redisTemplate.opsForHash().entries(itemKey);
+        numbers.forEach((field, number) -> {
+            Object item = items.get(field);
+            int n = Integer.parseInt(number.toString());
+            if (item instanceof ShoppingCart && n > 0) {
+                ShoppingCart shoppingCart = (ShoppingCart) item;
+                shoppingCart.setNumber(n);
+                list.add(shoppingCart);
+            }
+        });
+        list.sort(Comparator.comparing(ShoppingCart::getCreateTime,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return list;
+    }
+
+    /**
+     * 生成保存在商品信息哈希中的记录，不包含id和数量
+     */
+    private ShoppingCart toItem(Long userId, ShoppingCart shoppingCart) {
+        return ShoppingCart.builder()
+                .userId(userId)
+                .dishId(shoppingCart.getDishId())
+                .setmealId(shoppingCart.getSetmealId())
+                .dishFlavor(shoppingCart.getDishFlavor())
+                .name(shoppingCart.getName())
+                .image(shoppingCart.getImage())
+                .amount(shoppingCart.getAmount())
+                .createTime(shoppingCart.getCreateTime() == null ? LocalDateTime.now() : shoppingCart.getCreateTime())
+                .build();
+    }
+
+    /**
+     * 商品信息哈希的值序列化器，Lua脚本的参数需要与直接读写哈希时使用相同的格式
+     */
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> itemSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 查询菜品或套餐的名称、图片和单价
+     */
+    private void fillItemInfo(ShoppingCart item) {
+        if (item.getDishId() != null) {
+            //本次添加到购物车的是菜品
+            Dish dish = dishMapper.getById(item.getDishId());
+            item.setName(dish.getName());
+            item.setImage(dish.getImage());
+            item.setAmount(dish.getPrice());
+        } else {
+            //本次添加到购物车的是套餐
+            Setmeal setmeal = setmealMapper.getById(item.getSetmealId());
+            item.setName(setmeal.getName());
+            item.setImage(setmeal.getImage());
+            item.setAmount(setmeal.getPrice());
+        }
+    }
+
+    private void touch(Long userId) {
+        stringRedisTemplate.opsForZSet().add(ACTIVE_KEY, userId.toString(), System.currentTimeMillis());
+    }
+
+    private String field(Long dishId, String dishFlavor, Long setmealId) {
+        if (dishId != null) {
+            return "dish:" + dishId + ":" + (dishFlavor == null ? "" : dishFlavor);
+        }
+        return "setmeal:" + setmealId;
+    }
+
+    private String numberKey(Long userId) {
+        return KEY_PREFIX + userId + NUMBER_SUFFIX;
+    }
+
+    private String itemKey(Long userId) {
+        return KEY_PREFIX + userId + ITEM_SUFFIX;
+    }
+}
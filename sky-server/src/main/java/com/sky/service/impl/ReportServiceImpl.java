@@ -1,14 +1,21 @@
 package com.sky.service.impl;
 
+import com.sky.constant.MessageConstant;
+import com.sky.dto.DailyStatisticsDTO;
 import com.sky.dto.GoodsSalesDTO;
 import com.sky.entity.Orders;
+import com.sky.exception.ReportBusinessException;
+import com.sky.mapper.BusinessDailyMapper;
 import com.sky.mapper.OrderMapper;
-import com.sky.mapper.UserMapper;
 import com.sky.service.ReportService;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -22,10 +29,12 @@ import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,13 +43,37 @@ public class ReportServiceImpl implements ReportService {
     @Autowired
     private OrderMapper orderMapper;
     @Autowired
-    private UserMapper userMapper;
+    private BusinessDailyMapper businessDailyMapper;
     @Autowired
     private WorkspaceService workspaceService;
 
+    /**
+     * 运营数据报表模板路径
+     */
+    private static final String TEMPLATE_PATH = "template/运营数据报表模板.xlsx";
+    /**
+     * 单次最多导出的天数
+     */
+    private static final int MAX_EXPORT_DAYS = 366;
+    /**
+     * 流式写入时内存中保留的行数
+     */
+    private static final int WINDOW_SIZE = 100;
+    /**
+     * 模板中每日明细数据的起始行
+     */
+    private static final int DETAIL_FIRST_ROW = 7;
+    /**
+     * 订单明细页单页最多写入的行数，xlsx格式单页上限为1048576行
+     */
+    private static final int MAX_ROWS_PER_SHEET = 1000000;
+    private static final String[] ORDER_DETAIL_HEADERS = {"订单号", "下单时间", "订单状态", "实收金额", "收货人", "手机号", "地址"};
+    private static final String[] ORDER_STATUS_NAMES = {"", "待付款", "待接单", "已接单", "派送中", "已完成", "已取消"};
+    private static final DateTimeFormatter ORDER_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     /**
      * 根据指定日期范围获取营业额统计数据
-     * 该方法将计算每个日期的营业额总和，并返回一个包含日期和对应营业额的报告对象
+     * 该方法从每日营业数据汇总表一次查询出每天的营业额，没有数据的日期补0
      *
      * @param begin 起始日期
      * @param end   结束日期
@@ -48,37 +81,17 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public TurnoverReportVO getTurnoverStatistics(LocalDate begin, LocalDate end) {
-        // 初始化日期列表，用于存储起始日期到结束日期之间的所有日期
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        // 循环遍历，直到起始日期等于结束日期，构建日期列表
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
-        // 初始化营业额列表，用于存储每个日期的营业额
+        // 构建起始日期到结束日期之间的所有日期
+        List<LocalDate> dateList = getDateList(begin, end);
+        // 从汇总表查询区间内每天的营业数据
+        Map<LocalDate, DailyStatisticsDTO> dailyStatistics = getDailyStatistics(begin, end);
+
+        // 按日期顺序取出营业额，没有数据的日期补0
         List<Double> turnoverList = new ArrayList<>();
-        // 遍历日期列表，计算每个日期的营业额
         for (LocalDate date : dateList) {
-            // 设置开始时间为当前日期的凌晨
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            // 设置结束时间为当前日期的午夜
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            // 创建映射对象，用于查询订单数据
-            Map map = new HashMap();
-            // 设置查询开始时间
-            map.put("begin", beginTime);
-            // 设置查询结束时间
-            map.put("end", endTime);
-            // 设置查询状态为完成状态
-            map.put("status", Orders.COMPLETED);
-            // 通过映射查询当天的营业额总和
-            Double turnover = orderMapper.sumByMap(map);
-            // 如果营业额为空，设置为0.0，避免空指针异常
-            turnover = turnover == null ? 0.0 : turnover;
-            // 将计算得到的营业额添加到营业额列表中
-            turnoverList.add(turnover);
+            DailyStatisticsDTO statistics = dailyStatistics.get(date);
+            Double turnover = statistics == null ? null : statistics.getTurnover();
+            turnoverList.add(turnover == null ? 0.0 : turnover);
         }
         // 使用构建者模式创建TurnoverReportVO对象，并设置日期列表和营业额列表
         return TurnoverReportVO.builder()
@@ -90,7 +103,8 @@ public class ReportServiceImpl implements ReportService {
 
     /**
      * 根据指定日期范围获取用户统计数据
-     * 此方法主要用于生成用户报告，包括新用户数和总用户数，按天统计
+     * 先从每日汇总表中汇总起始日期之前的用户总量，再查询区间内每天的新增用户数，
+     * 在内存中累加得到每天的用户总量
      *
      * @param begin 统计开始日期
      * @param end   统计结束日期
@@ -98,38 +112,25 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public UserReportVO getUserStatistics(LocalDate begin, LocalDate end) {
-        // 初始化日期列表，用于存储开始日期到结束日期之间的所有日期
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        // 循环遍历，直到开始日期等于结束日期，确保日期范围覆盖完整
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1); // 将开始日期增加一天
-            dateList.add(begin); // 将新的日期添加到列表中
-        }
+        // 构建开始日期到结束日期之间的所有日期
+        List<LocalDate> dateList = getDateList(begin, end);
+
+        // 汇总开始日期之前已注册的用户总量，作为累加的基数
+        DailyStatisticsDTO before = businessDailyMapper.sumByDateRange(null, begin.minusDays(1));
+        int totalUser = before == null || before.getNewUsers() == null ? 0 : before.getNewUsers();
+
+        // 查询区间内每天的汇总数据
+        Map<LocalDate, DailyStatisticsDTO> dailyStatistics = getDailyStatistics(begin, end);
 
-        // 初始化新用户数列表，用于存储每天的新用户数
         List<Integer> newUserList = new ArrayList<>();
-        // 初始化总用户数列表，用于存储每天的总用户数
         List<Integer> totalUserList = new ArrayList<>();
-        // 遍历日期列表，为每一天统计用户数据
+        // 按日期顺序填充新增用户数，并累加得到每天的用户总量
         for (LocalDate date : dateList) {
-            // 获取当天的开始时间和结束时间，用于查询当天的用户数据
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            // 准备查询参数，首先查询当天的新用户数
-            Map map = new HashMap();
-            map.put("end", endTime);
-            // 执行查询，获取当天的新用户数
-            Integer newUser = userMapper.countByMap(map);
-
-            // 更新查询参数，添加开始时间，用于查询当天的总用户数
-            map.put("begin", beginTime);
-            // 执行查询，获取当天的总用户数
-            Integer totalUser = userMapper.countByMap(map);
-            // 将总用户数和新用户数分别添加到对应的列表中
-            totalUserList.add(totalUser);
+            DailyStatisticsDTO statistics = dailyStatistics.get(date);
+            int newUser = statistics == null || statistics.getNewUsers() == null ? 0 : statistics.getNewUsers();
+            totalUser += newUser;
             newUserList.add(newUser);
+            totalUserList.add(totalUser);
         }
         // 构建并返回用户报告数据对象，包含日期列表、每天的总用户数和新用户数
         return UserReportVO.builder()
@@ -142,7 +143,7 @@ public class ReportServiceImpl implements ReportService {
 
     /**
      * 根据指定日期范围统计订单数据
-     * 该方法旨在提供日期范围内每日的订单数量、有效订单数量、总订单数量、有效订单数量占比等统计信息
+     * 该方法从每日营业数据汇总表一次查询出每天的订单数量和有效订单数量，没有数据的日期补0
      *
      * @param begin 统计开始日期
      * @param end   统计结束日期
@@ -150,45 +151,36 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public OrderReportVO getOrderStatistics(LocalDate begin, LocalDate end) {
-        // 初始化日期列表，用于存储开始日期到结束日期之间的所有日期
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        // 循环添加日期直到达到结束日期
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
+        // 构建开始日期到结束日期之间的所有日期
+        List<LocalDate> dateList = getDateList(begin, end);
+        // 从汇总表查询区间内每天的营业数据
+        Map<LocalDate, DailyStatisticsDTO> dailyStatistics = getDailyStatistics(begin, end);
+
         // 初始化列表以存储每日的订单数量和有效订单数量
         List<Integer> orderCountList = new ArrayList<>();
-        List<Integer> vailidOrderCountList = new ArrayList<>();
-        // 遍历日期列表，查询每日的订单数量和有效订单数量
+        List<Integer> validOrderCountList = new ArrayList<>();
+        int totalOrderCount = 0;
+        int validOrderCount = 0;
         for (LocalDate date : dateList) {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            // 获取当日所有订单数量
-            Integer orderCount = getOrderCount(beginTime, endTime, null);
-
-            // 获取当日有效订单数量
-            Integer validOrderCount = getOrderCount(beginTime, endTime, Orders.COMPLETED);
-
-            // 将订单数量和有效订单数量分别添加到列表中
+            DailyStatisticsDTO statistics = dailyStatistics.get(date);
+            int orderCount = statistics == null || statistics.getOrderCount() == null ? 0 : statistics.getOrderCount();
+            int validCount = statistics == null || statistics.getValidOrderCount() == null ? 0 : statistics.getValidOrderCount();
             orderCountList.add(orderCount);
-            vailidOrderCountList.add(validOrderCount);
+            validOrderCountList.add(validCount);
+            totalOrderCount += orderCount;
+            validOrderCount += validCount;
         }
-        // 计算总订单数量和有效订单数量
-        Integer totalOrderCount = orderCountList.stream().reduce(Integer::sum).get();
-        Integer validOrderCount = vailidOrderCountList.stream().reduce(Integer::sum).get();
 
         // 计算订单完成率
         Double orderCompletionRate = 0.0;
         if (totalOrderCount != 0) {
-            orderCompletionRate = validOrderCount.doubleValue() / totalOrderCount;
+            orderCompletionRate = (double) validOrderCount / totalOrderCount;
         }
         // 构建并返回订单统计信息
         return OrderReportVO.builder()
                 .dateList(StringUtils.join(dateList, ","))
                 .orderCountList(StringUtils.join(orderCountList, ","))
-                .validOrderCountList(StringUtils.join(vailidOrderCountList, ","))
+                .validOrderCountList(StringUtils.join(validOrderCountList, ","))
                 .totalOrderCount(totalOrderCount)
                 .validOrderCount(validOrderCount)
                 .orderCompletionRate(orderCompletionRate)
@@ -197,25 +189,33 @@ public class ReportServiceImpl implements ReportService {
 
 
     /**
-     * 根据给定的时间段和订单状态查询订单数量
-     * 此方法用于统计在指定时间段内，特定状态的订单数量
+     * 构建起始日期到结束日期之间（包含两端）的所有日期
      *
-     * @param beginTime 订单开始时间，用于限定统计范围
-     * @param endTime   订单结束时间，用于限定统计范围
-     * @param status    订单状态，用于筛选特定状态的订单
-     * @return 返回符合条件的订单数量
+     * @param begin 起始日期
+     * @param end   结束日期
+     * @return 日期列表
      */
-    private Integer getOrderCount(LocalDateTime beginTime, LocalDateTime endTime, Integer status) {
-        // 创建参数映射，以便存储查询条件
-        Map map = new HashMap();
-        // 将开始时间加入参数映射
-        map.put("begin", beginTime);
-        // 将结束时间加入参数映射
-        map.put("end", endTime);
-        // 将订单状态加入参数映射
-        map.put("status", status);
-        // 调用映射查询方法，返回符合条件的订单数量
-        return orderMapper.countByMap(map);
+    private List<LocalDate> getDateList(LocalDate begin, LocalDate end) {
+        List<LocalDate> dateList = new ArrayList<>();
+        dateList.add(begin);
+        while (begin.isBefore(end)) {
+            begin = begin.plusDays(1);
+            dateList.add(begin);
+        }
+        return dateList;
+    }
+
+
+    /**
+     * 从每日汇总表查询指定日期范围内每天的营业数据
+     *
+     * @param begin 起始日期
+     * @param end   结束日期
+     * @return 以日期为键的每日营业数据，没有数据的日期不包含在内
+     */
+    private Map<LocalDate, DailyStatisticsDTO> getDailyStatistics(LocalDate begin, LocalDate end) {
+        List<DailyStatisticsDTO> list = businessDailyMapper.listByDateRange(begin, end);
+        return list.stream().collect(Collectors.toMap(DailyStatisticsDTO::getDate, Function.identity()));
     }
 
 
@@ -255,51 +255,72 @@ public class ReportServiceImpl implements ReportService {
 
     /**
      * 导出业务数据
-     * 本方法用于生成一份包含最近30天业务数据的Excel报表，并通过HttpServletResponse返回给用户
-     * @param response 用于返回报表文件的HttpServletResponse对象
+     * 本方法基于模板生成指定日期范围内的运营数据Excel报表，并通过HttpServletResponse返回给用户。
+     * 每日数据通过一次查询批量获取，超出模板的明细行和订单明细页通过SXSSF流式写入，
+     * 内存中只保留固定数量的行，导出一年的数据也不会随行数增长而占用更多内存
+     *
+     * @param begin           开始日期
+     * @param end             结束日期
+     * @param withOrderDetail 是否附带订单明细页
+     * @param response        用于返回报表文件的HttpServletResponse对象
+     * @throws IOException 读取模板或写出报表失败时抛出
      */
     @Override
-    public void exportBusinessData(HttpServletResponse response) {
-        //1. 查询数据库，获取营业数据---查询最近30天的运营数据
-        LocalDate dateBegin = LocalDate.now().minusDays(30);
-        LocalDate dateEnd = LocalDate.now().minusDays(1);
+    public void exportBusinessData(LocalDate begin, LocalDate end, boolean withOrderDetail, HttpServletResponse response) throws IOException {
+        if (begin.isAfter(end) || ChronoUnit.DAYS.between(begin, end) >= MAX_EXPORT_DAYS) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_ERROR);
+        }
 
-        //查询概览数据
-        BusinessDataVO businessDataVO = workspaceService.getBusinessData(LocalDateTime.of(dateBegin, LocalTime.MIN), LocalDateTime.of(dateEnd, LocalTime.MAX));
+        //1. 查询数据库，获取营业数据---概览数据和每日数据各一次查询
+        BusinessDataVO businessDataVO = workspaceService.getBusinessData(LocalDateTime.of(begin, LocalTime.MIN), LocalDateTime.of(end, LocalTime.MAX));
+        List<BusinessDataVO> dailyList = workspaceService.getDailyBusinessData(begin, end);
 
         //2. 通过POI将数据写入到Excel文件中
-        InputStream in = this.getClass().getClassLoader().getResourceAsStream("template/运营数据报表模板.xlsx");
+        InputStream in = this.getClass().getClassLoader().getResourceAsStream(TEMPLATE_PATH);
+        if (in == null) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_FAILED);
+        }
 
+        SXSSFWorkbook excel = null;
         try {
-            //基于模板文件创建一个新的Excel文件
-            XSSFWorkbook excel = new XSSFWorkbook(in);
+            //基于模板文件创建一个新的Excel文件，模板之外的新行以流式方式写入临时文件
+            excel = new SXSSFWorkbook(new XSSFWorkbook(in), WINDOW_SIZE);
 
-            //获取表格文件的Sheet页
-            XSSFSheet sheet = excel.getSheet("Sheet1");
+            //模板中已有的行只能通过XSSF方式修改，新增的行通过SXSSF方式写入
+            XSSFSheet templateSheet = excel.getXSSFWorkbook().getSheet("Sheet1");
+            SXSSFSheet sheet = excel.getSheet("Sheet1");
+            int lastTemplateRow = templateSheet.getLastRowNum();
 
             //填充数据--时间
-            sheet.getRow(1).getCell(1).setCellValue("时间：" + dateBegin + "至" + dateEnd);
+            templateSheet.getRow(1).getCell(1).setCellValue("时间：" + begin + "至" + end);
 
             //获得第4行
-            XSSFRow row = sheet.getRow(3);
-            row.getCell(2).setCellValue(businessDataVO.getTurnover());
-            row.getCell(4).setCellValue(businessDataVO.getOrderCompletionRate());
-            row.getCell(6).setCellValue(businessDataVO.getNewUsers());
+            XSSFRow overview = templateSheet.getRow(3);
+            overview.getCell(2).setCellValue(businessDataVO.getTurnover());
+            overview.getCell(4).setCellValue(businessDataVO.getOrderCompletionRate());
+            overview.getCell(6).setCellValue(businessDataVO.getNewUsers());
 
             //获得第5行
-            row = sheet.getRow(4);
-            row.getCell(2).setCellValue(businessDataVO.getValidOrderCount());
-            row.getCell(4).setCellValue(businessDataVO.getUnitPrice());
-
-            //填充明细数据
-            for (int i = 0; i < 30; i++) {
-                LocalDate date = dateBegin.plusDays(i);
-                //查询某一天的营业数据
-                BusinessDataVO businessData = workspaceService.getBusinessData(LocalDateTime.of(date, LocalTime.MIN), LocalDateTime.of(date, LocalTime.MAX));
-
-                //获得某一行
-                row = sheet.getRow(7 + i);
-                row.getCell(1).setCellValue(date.toString());
+            overview = templateSheet.getRow(4);
+            overview.getCell(2).setCellValue(businessDataVO.getValidOrderCount());
+            overview.getCell(4).setCellValue(businessDataVO.getUnitPrice());
+
+            //填充明细数据，超出模板的行沿用模板最后一行的单元格样式
+            XSSFRow styleRow = templateSheet.getRow(lastTemplateRow);
+            for (int i = 0; i < dailyList.size(); i++) {
+                BusinessDataVO businessData = dailyList.get(i);
+                int rowNum = DETAIL_FIRST_ROW + i;
+                Row row;
+                if (rowNum <= lastTemplateRow) {
+                    row = templateSheet.getRow(rowNum);
+                } else {
+                    row = sheet.createRow(rowNum);
+                    row.setHeight(styleRow.getHeight());
+                    for (int col = 1; col <= 6; col++) {
+                        row.createCell(col).setCellStyle(styleRow.getCell(col).getCellStyle());
+                    }
+                }
+                row.getCell(1).setCellValue(begin.plusDays(i).toString());
                 row.getCell(2).setCellValue(businessData.getTurnover());
                 row.getCell(3).setCellValue(businessData.getValidOrderCount());
                 row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
@@ -307,16 +328,73 @@ public class ReportServiceImpl implements ReportService {
                 row.getCell(6).setCellValue(businessData.getNewUsers());
             }
 
+            //填充订单明细页，订单以流式查询逐行写入
+            if (withOrderDetail) {
+                writeOrderDetailSheets(excel, begin, end);
+            }
+
             //3. 通过输出流将Excel文件下载到客户端浏览器
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            response.setHeader("Content-Disposition", "attachment;filename=business_" + begin + "_" + end + ".xlsx");
             ServletOutputStream out = response.getOutputStream();
             excel.write(out);
-
-            //关闭资源
-            out.close();
-            excel.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+            out.flush();
+        } finally {
+            //关闭资源，并删除流式写入产生的临时文件
+            if (excel != null) {
+                excel.dispose();
+                excel.close();
+            }
+            in.close();
         }
+    }
+
+    /**
+     * 将指定日期范围内的订单逐行写入订单明细页
+     * 单个Sheet页超过行数上限时自动新建下一个Sheet页
+     *
+     * @param excel 流式写入的Excel文件
+     * @param begin 开始日期
+     * @param end   结束日期
+     */
+    private void writeOrderDetailSheets(SXSSFWorkbook excel, LocalDate begin, LocalDate end) {
+        Sheet[] current = new Sheet[1];
+        int[] rowNum = {0};
+        int[] sheetCount = {0};
+
+        orderMapper.streamByOrderTime(LocalDateTime.of(begin, LocalTime.MIN), LocalDateTime.of(end, LocalTime.MAX), context -> {
+            if (current[0] == null || rowNum[0] >= MAX_ROWS_PER_SHEET) {
+                sheetCount[0]++;
+                current[0] = excel.createSheet(sheetCount[0] == 1 ? "订单明细" : "订单明细" + sheetCount[0]);
+                Row header = current[0].createRow(0);
+                for (int col = 0; col < ORDER_DETAIL_HEADERS.length; col++) {
+                    header.createCell(col).setCellValue(ORDER_DETAIL_HEADERS[col]);
+                }
+                rowNum[0] = 1;
+            }
+
+            Orders orders = context.getResultObject();
+            Row row = current[0].createRow(rowNum[0]++);
+            row.createCell(0).setCellValue(orders.getNumber());
+            row.createCell(1).setCellValue(orders.getOrderTime() == null ? "" : orders.getOrderTime().format(ORDER_TIME_FORMATTER));
+            row.createCell(2).setCellValue(getStatusName(orders.getStatus()));
+            row.createCell(3).setCellValue(orders.getAmount() == null ? 0.0 : orders.getAmount().doubleValue());
+            row.createCell(4).setCellValue(orders.getConsignee());
+            row.createCell(5).setCellValue(orders.getPhone());
+            row.createCell(6).setCellValue(orders.getAddress());
+        });
+    }
 
+    /**
+     * 获取订单状态对应的名称
+     *
+     * @param status 订单状态
+     * @return 订单状态名称，未知状态返回空字符串
+     */
+    private String getStatusName(Integer status) {
+        if (status == null || status < 1 || status >= ORDER_STATUS_NAMES.length) {
+            return "";
+        }
+        return ORDER_STATUS_NAMES[status];
     }
 }
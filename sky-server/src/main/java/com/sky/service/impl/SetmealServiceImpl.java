@@ -4,6 +4,7 @@ import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
+import com.sky.converter.SetmealConverter;
 import com.sky.dto.SetmealDTO;
 import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.entity.Dish;
@@ -19,11 +20,14 @@ import com.sky.service.SetmealService;
 import com.sky.vo.DishItemVO;
 import com.sky.vo.SetmealVO;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 实现套餐服务接口，提供具体的业务实现。
@@ -50,9 +54,8 @@ public class SetmealServiceImpl implements SetmealService {
      */
     @Override
     public void saveWithDish(SetmealDTO setmealDTO) {
-        Setmeal setmeal = new Setmeal();
-        // 使用BeanUtils工具类复制属性，避免手动设置
-        BeanUtils.copyProperties(setmealDTO, setmeal);
+        // 复制属性到新的套餐对象，避免手动设置
+        Setmeal setmeal = SetmealConverter.INSTANCE.toSetmeal(setmealDTO);
         // 将套餐信息保存到数据库
         setmealMapper.insert(setmeal);
         // 获取保存后生成的套餐ID
@@ -95,25 +98,28 @@ public class SetmealServiceImpl implements SetmealService {
      * 批量删除套餐。
      * <p>
      * 此方法首先遍历传入的ID列表，检查每个套餐的状态。如果套餐处于启用状态，则抛出一个异常，
-     * 表示不允许删除正在销售的套餐。如果套餐状态检查通过，则再次遍历ID列表，删除套餐及其关联的菜品项。
+     * 表示不允许删除正在销售的套餐。如果套餐状态检查通过，则删除套餐及其关联的菜品项。
+     * 查询和删除都按ID列表批量执行，无论删除多少个套餐，事务内都只执行固定数量的SQL语句。
      *
      * @param ids 要删除的套餐ID列表。
      * @throws DeletionNotAllowedException 如果尝试删除正在销售的套餐，则抛出此异常。
      */
     @Override
+    @Transactional
     public void deleteBatch(List<Long> ids) {
-        // 检查套餐状态，如果正在销售，则不允许删除
-        ids.forEach(id -> {
-            Setmeal setmeal = setmealMapper.getById(id);
-            if (StatusConstant.ENABLE == setmeal.getStatus()) {
-                throw new DeletionNotAllowedException(MessageConstant.SETMEAL_ON_SALE);
-            }
-        });
+        // 没有要删除的套餐时直接返回，避免生成空的in ()语句
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        // 一次查询出所有套餐，检查套餐状态，如果正在销售，则不允许删除
+        boolean onSale = setmealMapper.getByIds(ids).stream()
+                .anyMatch(setmeal -> StatusConstant.ENABLE.equals(setmeal.getStatus()));
+        if (onSale) {
+            throw new DeletionNotAllowedException(MessageConstant.SETMEAL_ON_SALE);
+        }
         // 执行删除操作，包括套餐本身和关联的菜品项
-        ids.forEach(setmealId -> {
-            setmealMapper.deleteById(setmealId);       // 删除套餐
-            setmealDishMapper.deleteByDishId(setmealId); // 删除套餐关联的菜品项
-        });
+        setmealMapper.deleteByIds(ids);                // 删除套餐
+        setmealDishMapper.deleteBySetmealIds(ids);     // 删除套餐关联的菜品项
     }
 
     /**
@@ -143,9 +149,8 @@ public class SetmealServiceImpl implements SetmealService {
      */
     @Override
     public void update(SetmealDTO setmealDTO) {
-        Setmeal setmeal = new Setmeal();
         // 复制属性到新的套餐对象
-        BeanUtils.copyProperties(setmealDTO, setmeal);
+        Setmeal setmeal = SetmealConverter.INSTANCE.toSetmeal(setmealDTO);
         // 更新数据库中的套餐信息
         setmealMapper.update(setmeal);
         // 获取套餐ID
@@ -227,4 +232,19 @@ public class SetmealServiceImpl implements SetmealService {
         // 使用mapper层的getDishItemBySetmealId方法，根据套餐ID获取菜品项视图列表
         return setmealMapper.getDishItemBySetmealId(id);
     }
-}
\ No newline at end of file
+
+    /**
+     * 根据套餐ID列表查询这些套餐所属的分类ID。
+     *
+     * @param ids 套餐ID列表。
+     * @return 去重后的分类ID集合。
+     */
+    public Set<Long> getCategoryIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return setmealMapper.getByIds(ids).stream()
+                .map(Setmeal::getCategoryId)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+}
@@ -1,6 +1,7 @@
 package com.sky.service.impl;
 
 import com.sky.context.BaseContext;
+import com.sky.converter.ShoppingCartConverter;
 import com.sky.dto.ShoppingCartDTO;
 import com.sky.entity.Dish;
 import com.sky.entity.Setmeal;
@@ -10,17 +11,20 @@ import com.sky.mapper.SetmealMapper;
 import com.sky.mapper.ShoppingCartMapper;
 import com.sky.service.ShoppingCartService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * 购物车服务实现类。
+ * 购物车服务实现类，购物车数据直接保存在MySQL中。
+ * 配置sky.cart.store=mysql时启用，默认使用{@link RedisShoppingCartServiceImpl}。
  */
 @Service
+@ConditionalOnProperty(name = "sky.cart.store", havingValue = "mysql")
 public class ShoppingCartServiceImpl implements ShoppingCartService {
 
     @Autowired
@@ -35,43 +39,37 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     /**
      * 添加商品到购物车。
      * <p>
-     * 此方法首先根据传入的购物车数据传输对象创建一个新的购物车实体。
-     * 然后检查是否存在相同条件的购物车记录，若存在则增加商品数量，否则将新商品添加到购物车。
-     * 如果商品是菜品，则从菜品表中获取名称和图片；如果是套餐，则从套餐表中获取。
-     * 最后，如果添加的是新商品，则将该记录保存到数据库。
+     * 此方法首先根据传入的购物车数据传输对象创建一个新的购物车实体，并直接在数据库中将该商品的数量加1。
+     * 如果商品不在购物车中（修改行数为0），再查询菜品或套餐的名称、图片和单价，插入一条数量为1的记录；
+     * 插入时如果其他请求已经插入了同一商品，则在原数量上累加，不会丢失并发的添加操作。
      *
      * @param shoppingCartDTO 包含添加到购物车的商品信息的数据传输对象。
      */
     @Override
     public void addShoppingCart(ShoppingCartDTO shoppingCartDTO) {
-        ShoppingCart shoppingCart = new ShoppingCart();
-        BeanUtils.copyProperties(shoppingCartDTO, shoppingCart);
+        ShoppingCart shoppingCart = ShoppingCartConverter.INSTANCE.toShoppingCart(shoppingCartDTO);
         shoppingCart.setUserId(BaseContext.getCurrentId()); // 设置用户ID为当前登录用户的ID
 
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
-        if (shoppingCartList != null && shoppingCartList.size() == 1) {
-            shoppingCart = shoppingCartList.get(0);
-            shoppingCart.setNumber(shoppingCart.getNumber() + 1);
-            shoppingCartMapper.updateNumberById(shoppingCart); // 更新数量
+        if (shoppingCartMapper.incrementNumber(shoppingCart) > 0) {
+            return; // 商品已在购物车中，数量已加1
+        }
+        Long dishId = shoppingCartDTO.getDishId();
+        if (dishId != null) {
+            //本次添加到购物车的是菜品
+            Dish dish = dishMapper.getById(dishId);
+            shoppingCart.setName(dish.getName());
+            shoppingCart.setImage(dish.getImage());
+            shoppingCart.setAmount(dish.getPrice());
         } else {
-            Long dishId = shoppingCartDTO.getDishId();
-            if (dishId != null) {
-                //本次添加到购物车的是菜品
-                Dish dish = dishMapper.getById(dishId);
-                shoppingCart.setName(dish.getName());
-                shoppingCart.setImage(dish.getImage());
-                shoppingCart.setAmount(dish.getPrice());
-            } else {
-                //本次添加到购物车的是套餐
-                Setmeal setmeal = setmealMapper.getById(shoppingCartDTO.getSetmealId());
-                shoppingCart.setName(setmeal.getName());
-                shoppingCart.setImage(setmeal.getImage());
-                shoppingCart.setAmount(setmeal.getPrice());
-            }
-            shoppingCart.setNumber(1);
-            shoppingCart.setCreateTime(LocalDateTime.now()); // 设置创建时间为当前时间
-            shoppingCartMapper.insert(shoppingCart); // 插入新记录
+            //本次添加到购物车的是套餐
+            Setmeal setmeal = setmealMapper.getById(shoppingCartDTO.getSetmealId());
+            shoppingCart.setName(setmeal.getName());
+            shoppingCart.setImage(setmeal.getImage());
+            shoppingCart.setAmount(setmeal.getPrice());
         }
+        shoppingCart.setNumber(1);
+        shoppingCart.setCreateTime(LocalDateTime.now()); // 设置创建时间为当前时间
+        shoppingCartMapper.upsert(shoppingCart); // 插入新记录，已存在时累加数量
     }
 
     /**
@@ -104,28 +102,40 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     /**
      * 从购物车中减去商品数量或删除商品。
      * <p>
-     * 此方法根据传入的购物车数据传输对象和当前用户ID查询购物车中的相应记录。
-     * 如果找到记录并且商品数量大于1，则减少商品数量。如果商品数量为1，则从购物车中删除该商品记录。
+     * 在事务中先锁定该商品的记录，数量大于1时减1，否则删除该记录。
+     * 并发的添加和减少操作在行锁上排队，不会出现负数或丢失操作。
      *
      * @param shoppingCartDTO 包含购物车商品信息的数据传输对象。
      */
+    @Override
+    @Transactional
     public void subShoppingCart(ShoppingCartDTO shoppingCartDTO) {
-        ShoppingCart shoppingCart = new ShoppingCart();
-        BeanUtils.copyProperties(shoppingCartDTO, shoppingCart);
+        ShoppingCart shoppingCart = ShoppingCartConverter.INSTANCE.toShoppingCart(shoppingCartDTO);
         shoppingCart.setUserId(BaseContext.getCurrentId()); // 设置购物车记录的用户ID为当前登录用户ID
-        List<ShoppingCart> list = shoppingCartMapper.list(shoppingCart); // 根据条件查询购物车记录列表
-        if (list != null && !list.isEmpty()) {
-            shoppingCart = list.get(0); // 获取列表中的第一条记录
-            Integer number = shoppingCart.getNumber(); // 获取商品数量
-            if (number == 1) {
-                // 如果商品数量为1，则从数据库中删除该购物车记录
-                shoppingCartMapper.deleteById(shoppingCart.getId());
-            } else {
-                // 如果商品数量大于1，则减少商品数量
-                shoppingCart.setNumber(shoppingCart.getNumber() - 1);
-                shoppingCartMapper.updateNumberById(shoppingCart);
-            }
+        ShoppingCart item = shoppingCartMapper.getItemForUpdate(shoppingCart);
+        if (item == null) {
+            return;
+        }
+        if (item.getNumber() > 1) {
+            item.setNumber(item.getNumber() - 1);
+            shoppingCartMapper.updateNumberById(item);
+        } else {
+            shoppingCartMapper.deleteById(item.getId());
+        }
+    }
+
+    /**
+     * 批量添加商品到购物车。
+     * <p>
+     * 插入传入的购物车记录，已存在的商品累加数量，用于再来一单。
+     *
+     * @param shoppingCartList 要添加的购物车记录列表。
+     */
+    @Override
+    public void addBatch(List<ShoppingCart> shoppingCartList) {
+        if (shoppingCartList == null || shoppingCartList.isEmpty()) {
+            return;
         }
-        // 注意：如果查询结果为空，即没有找到对应的购物车记录，则不执行任何操作。
+        shoppingCartMapper.insertBatch(shoppingCartList);
     }
-}
\ No newline at end of file
+}
@@ -3,11 +3,13 @@ package com.sky.service.impl;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.sky.constant.MessageConstant;
+import com.sky.dto.DailyStatisticsDTO;
 import com.sky.dto.UserLoginDTO;
 import com.sky.entity.User;
 import com.sky.exception.LoginFailedException;
 import com.sky.mapper.UserMapper;
 import com.sky.properties.WeChatProperties;
+import com.sky.service.BusinessDailyService;
 import com.sky.service.UserService;
 import com.sky.utils.HttpClientUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +37,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private BusinessDailyService businessDailyService;
+
     /**
      * 根据微信登录信息进行登录操作。
      *
@@ -58,6 +63,11 @@ public class UserServiceImpl implements UserService {
                     .createTime(LocalDateTime.now())
                     .build();
             userMapper.insert(user);
+            // 累加当天的新增用户数，不在登录请求中持有当天汇总记录的行锁
+            businessDailyService.incrementAfterCommit(DailyStatisticsDTO.builder()
+                    .date(user.getCreateTime().toLocalDate())
+                    .newUsers(1)
+                    .build());
         }
         // 返回用户实体对象
         return user;
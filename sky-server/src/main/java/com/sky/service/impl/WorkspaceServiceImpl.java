@@ -1,11 +1,13 @@
 package com.sky.service.impl;
 
 import com.sky.constant.StatusConstant;
+import com.sky.dto.DailyStatisticsDTO;
+import com.sky.dto.StatusCountDTO;
 import com.sky.entity.Orders;
+import com.sky.mapper.BusinessDailyMapper;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.UserMapper;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -15,10 +17,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -26,16 +32,16 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     @Autowired
     private OrderMapper orderMapper;
     @Autowired
-    private UserMapper userMapper;
-    @Autowired
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private BusinessDailyMapper businessDailyMapper;
 
     /**
      * 根据指定时间段获取业务数据
-     * 此方法通过统计订单数量、营业额、有效订单完成率和新增用户数，
-     * 为业务分析提供关键数据支持
+     * 此方法从每日营业数据汇总表中汇总订单数量、营业额、有效订单完成率和新增用户数，
+     * 查询代价与订单表的数据量无关。汇总表按天统计，因此时间段按所在日期取整
      *
      * @param begin 开始时间（包含）
      * @param end   结束时间（包含）
@@ -43,21 +49,42 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public BusinessDataVO getBusinessData(LocalDateTime begin, LocalDateTime end) {
-        // 初始化参数map，用于后续查询
-        Map map = new HashMap();
-        map.put("begin", begin);
-        map.put("end", end);
-
-        // 查询时间段内所有订单的数量
-        Integer totalOrderCount = orderMapper.countByMap(map);
-        // 查询时间段内被取消的订单数量，并计算营业额
-        map.put("status", Orders.COMPLETED);
+        // 从汇总表中汇总时间段内的营业数据
+        DailyStatisticsDTO sum = businessDailyMapper.sumByDateRange(begin.toLocalDate(), end.toLocalDate());
+        return toBusinessDataVO(sum);
+    }
 
-        Double turnover = orderMapper.sumByMap(map);
-        turnover=turnover == null ? 0.0 : turnover;
+    /**
+     * 获取指定日期范围内每一天的业务数据
+     * 通过一次查询从汇总表中取出区间内的所有记录，没有记录的日期返回全0的数据
+     *
+     * @param begin 开始日期
+     * @param end   结束日期
+     * @return 按日期顺序排列的业务数据列表
+     */
+    @Override
+    public List<BusinessDataVO> getDailyBusinessData(LocalDate begin, LocalDate end) {
+        Map<LocalDate, DailyStatisticsDTO> dailyMap = businessDailyMapper.listByDateRange(begin, end)
+                .stream()
+                .collect(Collectors.toMap(DailyStatisticsDTO::getDate, Function.identity()));
+        List<BusinessDataVO> list = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            list.add(toBusinessDataVO(dailyMap.get(date)));
+        }
+        return list;
+    }
 
-        // 计算有效订单数量
-        Integer validOrderCount = orderMapper.countByMap(map);
+    /**
+     * 将汇总的营业数据转换为业务数据对象，并计算订单完成率和平均客单价
+     *
+     * @param sum 汇总的营业数据，可以为null
+     * @return 业务数据对象
+     */
+    private BusinessDataVO toBusinessDataVO(DailyStatisticsDTO sum) {
+        Double turnover = sum == null || sum.getTurnover() == null ? 0.0 : sum.getTurnover();
+        Integer totalOrderCount = sum == null || sum.getOrderCount() == null ? 0 : sum.getOrderCount();
+        Integer validOrderCount = sum == null || sum.getValidOrderCount() == null ? 0 : sum.getValidOrderCount();
+        Integer newUsers = sum == null || sum.getNewUsers() == null ? 0 : sum.getNewUsers();
 
         // 初始化商品单价和订单完成率为0
         Double unitPrice = 0.0;
@@ -69,8 +96,6 @@ public class WorkspaceServiceImpl implements WorkspaceService {
             orderCompletionRate = validOrderCount.doubleValue() / totalOrderCount;
             unitPrice = turnover / validOrderCount;
         }
-        // 查询时间段内新增的用户数量
-        Integer newUsers = userMapper.countByMap(map);
         // 构建并返回业务数据对象
         return BusinessDataVO.builder()
                 .turnover(turnover)
@@ -85,43 +110,24 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     @Override
     /**
      * 获取订单概览
-     * 此方法通过查询数据库中不同状态的订单数量来提供订单的总体概览
+     * 此方法按状态分组统计当日的订单数量，一次查询即可得到各状态的订单数
      * 它使用LocalDateTime来限定查询的时间范围，确保只计算当日的订单
-     * 订单状态包括：待确认、已确认待发货、已完成和已取消
+     * 订单状态包括：待确认、已确认待发货、已完成和已取消，全部订单数为各状态数量之和
      * 最后，它返回一个OrderOverViewVO对象，其中包含了各类订单的数量
      */
     public OrderOverViewVO getOrderOverView() {
-        // 初始化一个Map来存储查询条件
-        Map map = new HashMap();
-        // 设置查询的开始时间为当日的开始时间
-        map.put("begin", LocalDateTime.now().with(LocalTime.MIN));
-        // 设置订单状态为待确认
-        map.put("status", Orders.TO_BE_CONFIRMED);
-
-        // 查询并获取待确认状态的订单数量
-        Integer waitingOrders = orderMapper.countByMap(map);
-
-        // 更新订单状态为已确认待发货，查询并获取对应订单数量
-        map.put("status", Orders.CONFIRMED);
-        Integer deliveredOrders = orderMapper.countByMap(map);
-
-        // 更新订单状态为已完成，查询并获取对应订单数量
-        map.put("status", Orders.COMPLETED);
-        Integer completedOrders = orderMapper.countByMap(map);
-
-        // 更新订单状态为已取消，查询并获取对应订单数量
-        map.put("status", Orders.CANCELLED);
-        Integer cancelledOrders = orderMapper.countByMap(map);
-
-        // 更新订单状态为null，即查询所有状态的订单数量
-        map.put("status", null);
-        Integer allOrders = orderMapper.countByMap(map);
+        // 按状态分组统计当日开始以来的订单数量
+        Map<Integer, Integer> counts = toCountMap(
+                orderMapper.countGroupByStatus(LocalDateTime.now().with(LocalTime.MIN), null));
+
+        // 所有状态的订单数量之和即为全部订单数量
+        Integer allOrders = counts.values().stream().mapToInt(Integer::intValue).sum();
         // 使用Builder模式构建并返回订单概览对象
         return OrderOverViewVO.builder()
-                .waitingOrders(waitingOrders)
-                .deliveredOrders(deliveredOrders)
-                .completedOrders(completedOrders)
-                .cancelledOrders(cancelledOrders)
+                .waitingOrders(counts.getOrDefault(Orders.TO_BE_CONFIRMED, 0))
+                .deliveredOrders(counts.getOrDefault(Orders.CONFIRMED, 0))
+                .completedOrders(counts.getOrDefault(Orders.COMPLETED, 0))
+                .cancelledOrders(counts.getOrDefault(Orders.CANCELLED, 0))
                 .allOrders(allOrders)
                 .build();
     }
@@ -134,21 +140,12 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public DishOverViewVO getDishOverView() {
-        // 初始化参数map，用于查询条件的设置
-        Map map = new HashMap();
-        // 设置查询状态为启用，以统计上架的菜品数量
-        map.put("status", StatusConstant.ENABLE);
-        // 查询并获取上架菜品的数量
-        Integer sold = dishMapper.countByMap(map);
-
-        // 更新查询状态为禁用，以统计下架的菜品数量
-        map.put("status", StatusConstant.DISABLE);
-        // 查询并获取下架菜品的数量
-        Integer discontinued = dishMapper.countByMap(map);
+        // 按起售停售状态分组统计菜品数量
+        Map<Integer, Integer> counts = toCountMap(dishMapper.countGroupByStatus());
         // 构建并返回菜品概览信息对象
         return DishOverViewVO.builder()
-                .sold(sold)
-                .discontinued(discontinued)
+                .sold(counts.getOrDefault(StatusConstant.ENABLE, 0))
+                .discontinued(counts.getOrDefault(StatusConstant.DISABLE, 0))
                 .build();
     }
 
@@ -160,23 +157,25 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public SetmealOverViewVO getSetmealOverView() {
-        // 初始化查询条件的Map
-        Map map = new HashMap();
-        // 设置查询状态为启用，以查询售出的套餐数量
-        map.put("status", StatusConstant.ENABLE);
-        // 根据启用状态查询套餐数量
-        Integer sold = setmealMapper.countByMap(map);
-
-        // 更新查询状态为停用，以查询停售的套餐数量
-        map.put("status", StatusConstant.DISABLE);
-        // 根据停用状态查询套餐数量
-        Integer discontinued = setmealMapper.countByMap(map);
+        // 按起售停售状态分组统计套餐数量
+        Map<Integer, Integer> counts = toCountMap(setmealMapper.countGroupByStatus());
 
         // 构建并返回套餐概览信息对象，包含售出和停售数量
         return SetmealOverViewVO.builder()
-                .sold(sold)
-                .discontinued(discontinued)
+                .sold(counts.getOrDefault(StatusConstant.ENABLE, 0))
+                .discontinued(counts.getOrDefault(StatusConstant.DISABLE, 0))
                 .build();
     }
 
+    /**
+     * 将按状态分组的统计结果转换为以状态为key的数量映射
+     *
+     * @param statusCounts 分组统计结果
+     * @return 状态到数量的映射，没有记录的状态不在其中
+     */
+    private Map<Integer, Integer> toCountMap(List<StatusCountDTO> statusCounts) {
+        return statusCounts.stream()
+                .collect(Collectors.toMap(StatusCountDTO::getStatus, StatusCountDTO::getCount));
+    }
+
 }
@@ -0,0 +1,138 @@
+package com.sky.task;
+
+import com.sky.mapper.BusinessDailyMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务类，定时对账每日营业数据汇总表
+ * 对账和历史回填都会按日期区间重新计算整张订单表和用户表的数据，多个节点之间通过Redis锁只让一个节点执行
+ */
+@Component
+@Slf4j
+public class BusinessDailyTask {
+
+    private static final String LOCK_KEY = "business:daily:lock";
+    private static final long LOCK_SECONDS = 6 * 3600;
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private BusinessDailyMapper businessDailyMapper;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 每次对账向前回溯的天数
+     */
+    @Value("${sky.report.reconcile-days:3}")
+    private int reconcileDays;
+
+    /**
+     * 定时任务：根据订单表和用户表重新计算最近几天的汇总数据
+     * 每天凌晨2点执行一次，修正增量维护过程中可能出现的偏差。
+     * 只对账到昨天，当天的订单仍在下单后增量累加，避免对账与增量累加重复计算
+     */
+    @Scheduled(cron = "0 0 2 * * ? ")
+    public void reconcileBusinessData() {
+        LocalDate end = LocalDate.now().minusDays(1);
+        LocalDate begin = end.minusDays(reconcileDays - 1);
+        runLocked(() -> {
+            log.info("定时对账每日营业数据：{}至{}", begin, end);
+            reconcile(begin, end);
+        });
+    }
+
+    /**
+     * 项目启动后回填历史数据：汇总表最早的日期晚于最早的订单或用户时，
+     * 从昨天开始按月向前重新计算，直到覆盖全部历史数据。
+     * 从后向前回填，中途中断时汇总表最早的日期仍晚于原始数据，下次启动会继续回填。
+     * 在后台线程中执行，不阻塞启动；所有节点启动时都会触发，只有获得锁的节点执行
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillHistory() {
+        runLocked(this::backfill);
+    }
+
+    private void backfill() {
+        LocalDate earliest = earliestDate();
+        LocalDate end = LocalDate.now().minusDays(1);
+        LocalDate rolledUp = businessDailyMapper.getMinDate();
+        if (earliest == null || earliest.isAfter(end) || (rolledUp != null && !rolledUp.isAfter(earliest))) {
+            return;
+        }
+        log.info("回填每日营业数据：{}至{}", earliest, end);
+        while (!end.isBefore(earliest)) {
+            LocalDate begin = end.minusMonths(1).plusDays(1);
+            if (begin.isBefore(earliest)) {
+                begin = earliest;
+            }
+            reconcile(begin, end);
+            end = begin.minusDays(1);
+        }
+        log.info("每日营业数据回填完成");
+    }
+
+    /**
+     * 根据订单表和用户表重新计算指定日期区间内（包含两端）的汇总数据，并覆盖写入汇总表
+     *
+     * @param begin 开始日期
+     * @param end   结束日期
+     */
+    public void reconcile(LocalDate begin, LocalDate end) {
+        businessDailyMapper.recompute(begin, end);
+    }
+
+    /**
+     * 获得锁后执行任务，其他节点正在执行时跳过
+     */
+    private void runLocked(Runnable task) {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, LOCK_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.info("其他节点正在重新计算每日营业数据，跳过本次执行");
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(LOCK_KEY), token);
+        }
+    }
+
+    /**
+     * 最早的下单日期和用户注册日期中较早的一个
+     */
+    private LocalDate earliestDate() {
+        LocalDateTime orderTime = orderMapper.getMinOrderTime();
+        LocalDateTime createTime = userMapper.getMinCreateTime();
+        if (orderTime == null || createTime == null) {
+            return orderTime != null ? orderTime.toLocalDate() : createTime == null ? null : createTime.toLocalDate();
+        }
+        return (orderTime.isBefore(createTime) ? orderTime : createTime).toLocalDate();
+    }
+}
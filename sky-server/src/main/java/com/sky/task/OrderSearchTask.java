@@ -0,0 +1,42 @@
+package com.sky.task;
+
+import com.sky.service.OrderSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时任务类，为历史订单补建搜索后缀
+ */
+@Component
+@Slf4j
+public class OrderSearchTask {
+    @Autowired
+    private OrderSearchService orderSearchService;
+
+    /**
+     * 补建历史订单的搜索后缀，每天凌晨3点30分执行一次
+     * 新订单在下单时已建立后缀，该任务只在上线后处理存量订单，之后每次只检查新增部分
+     */
+    @Scheduled(cron = "0 30 3 * * ? ")
+    public void backfill() {
+        int count = orderSearchService.backfill();
+        log.info("补建订单搜索后缀：{}个订单", count);
+    }
+
+    /**
+     * 项目启动后，历史订单的搜索后缀尚未补建完成时立即补建，完成后搜索切换到后缀表。
+     * 在后台线程中执行，不阻塞启动
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!orderSearchService.isIndexReady()) {
+            backfill();
+        }
+    }
+}
@@ -1,68 +1,168 @@
 package com.sky.task;
 
+import com.sky.dto.DailyStatisticsDTO;
 import com.sky.entity.Orders;
+import com.sky.mapper.BusinessDailyMapper;
 import com.sky.mapper.OrderMapper;
+import com.sky.queue.OrderTimeoutQueue;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * 定时任务类，定时处理订单状态
  */
 @Component
 @Slf4j
 public class OrderTask {
+    /**
+     * 每批处理的订单数量
+     */
+    private static final int BATCH_SIZE = 500;
+
     @Autowired
     private OrderMapper orderMapper;
+    @Autowired
+    private OrderTimeoutQueue orderTimeoutQueue;
+    @Autowired
+    private BusinessDailyMapper businessDailyMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 处理超时队列中到期的订单
+     * 每秒从超时队列中取出已到支付截止时间的订单，按批次用一条UPDATE语句取消，
+     * 只取消仍处于待支付状态的订单，已支付或已取消的订单不受影响
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void processTimeoutQueue() {
+        List<Long> orderIds;
+        do {
+            orderIds = orderTimeoutQueue.pollExpired(BATCH_SIZE);
+            if (!orderIds.isEmpty()) {
+                int count = orderMapper.updateStatusByIds(orderIds, Orders.PENDING_PAYMENT, timeoutCancelled());
+                log.info("超时队列处理到期订单{}个，取消{}个", orderIds.size(), count);
+            }
+        } while (orderIds.size() == BATCH_SIZE);
+    }
+
     /**
      * 处理超时订单的方法
+     * 作为超时队列的兜底，取消因队列写入失败等原因遗漏的超时订单
      */
-    @Scheduled(cron = "0 * * * * ? ") //每分钟触发一次
+    @Scheduled(cron = "0 0/10 * * * ? ") //每10分钟触发一次
     public void processTimeoutOrder() {
         // 记录定时任务执行时间
         log.info("定时处理超时订单：{}", LocalDateTime.now());
-        // 设置一个时间阈值，用于筛选15分钟前的订单
-        LocalDateTime time = LocalDateTime.now().plusMinutes(-15);
-        // 查询订单状态为待支付且下单时间早于阈值的订单列表
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, time);
-        // 如果订单列表非空且含有订单，则遍历订单列表
-        if (ordersList != null && ordersList.size() > 0) {
-            for (Orders orders : ordersList) {
-                // 将订单状态更新为已取消
-                orders.setStatus(Orders.CANCELLED);
-                // 设置订单取消的原因
-                orders.setCancelReason("订单超时，自动取消");
-                // 更新订单的取消时间
-                orders.setCancelTime(LocalDateTime.now());
-                // 更新数据库中的订单信息
-                orderMapper.update(orders);
-            }
+        // 设置一个时间阈值，用于筛选超过支付时间的订单
+        LocalDateTime time = LocalDateTime.now().plusMinutes(-OrderTimeoutQueue.PAY_TIMEOUT_MINUTES);
+        // 分批将待支付且下单时间早于阈值的订单更新为已取消
+        int count = updateStatusInBatches(Orders.PENDING_PAYMENT, time,
+                ids -> orderMapper.updateStatusByIds(ids, Orders.PENDING_PAYMENT, timeoutCancelled()));
+        if (count > 0) {
+            log.info("定时任务取消超时订单{}个", count);
         }
     }
 
     /**
      * 定时任务：更新派送中订单的状态为已完成
      * 该方法通过调度任务自动更新系统中符合条件的订单状态，以减少人工操作，提高效率
-     * 每天凌晨1点执行一次，查询过去一小时内的派送中订单，并将其状态更新为已完成
+     * 每天凌晨1点执行一次，将下单时间早于一小时前的派送中订单分批更新为已完成并记录送达时间，
+     * 每批在同一事务中按本批完成的订单累加每日营业数据汇总
      */
     @Scheduled(cron = "0 0 1 * * ? ")
     public void processDeliveryOrder() {
         // 记录当前时间，用于后续查询一小时前的订单
         LocalDateTime time = LocalDateTime.now().plusMinutes(-60);
+        int count = updateStatusInBatches(Orders.DELIVERY_IN_PROGRESS, time, this::completeDelivery);
+        log.info("定时完成派送中订单{}个", count);
+    }
+
+    /**
+     * 在一个事务中完成一批派送中的订单：先锁定仍处于派送中的订单，再修改状态，
+     * 最后按下单日期将这些订单计入有效订单数和营业额。
+     * 只累加本批实际完成的订单，与下单、手动完成订单时的增量累加互不覆盖
+     *
+     * @param ids 本批订单id
+     * @return 实际完成的订单数
+     */
+    private int completeDelivery(List<Long> ids) {
+        Integer count = transactionTemplate.execute(status -> {
+            List<Orders> ordersList = orderMapper.lockByIdsAndStatus(ids, Orders.DELIVERY_IN_PROGRESS);
+            if (ordersList.isEmpty()) {
+                return 0;
+            }
+            List<Long> lockedIds = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+            int updated = orderMapper.updateStatusByIds(lockedIds, Orders.DELIVERY_IN_PROGRESS, deliveryCompleted());
+            ordersList.stream()
+                    .collect(Collectors.groupingBy(orders -> orders.getOrderTime().toLocalDate()))
+                    .forEach((date, list) -> businessDailyMapper.increment(DailyStatisticsDTO.builder()
+                            .date(date)
+                            .validOrderCount(list.size())
+                            .turnover(list.stream().mapToDouble(orders -> orders.getAmount().doubleValue()).sum())
+                            .build()));
+            return updated;
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 超时取消后的订单状态
+     */
+    private Orders timeoutCancelled() {
+        return Orders.builder()
+                .status(Orders.CANCELLED)
+                .cancelReason("订单超时，自动取消")
+                .cancelTime(LocalDateTime.now())
+                .build();
+    }
 
-        // 查询派送中状态的订单，其下单时间早于一小时前
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.DELIVERY_IN_PROGRESS, time);
+    /**
+     * 定时完成后的订单状态
+     */
+    private Orders deliveryCompleted() {
+        return Orders.builder()
+                .status(Orders.COMPLETED)
+                .deliveryTime(LocalDateTime.now())
+                .build();
+    }
 
-        // 如果查询到符合条件的订单列表不为空，则遍历列表，更新每个订单的状态为已完成
-        if (ordersList != null && !ordersList.isEmpty()) {
-            for (Orders orders : ordersList) {
-                orders.setStatus(Orders.COMPLETED);
+    /**
+     * 按(下单时间, id)游标分批修改订单状态，每批先查询一页订单id，再用一条UPDATE语句修改，
+     * 每批各自提交，积压再多内存占用和事务大小也只与批次大小有关
+     *
+     * @param fromStatus  修改前的订单状态
+     * @param orderTime   只处理下单时间早于该时间的订单
+     * @param updateBatch 修改一批订单的状态，参数为本批订单id，返回实际修改的订单数
+     * @return 实际修改的订单数
+     */
+    private int updateStatusInBatches(Integer fromStatus, LocalDateTime orderTime,
+                                      Function<List<Long>, Integer> updateBatch) {
+        int count = 0;
+        LocalDateTime lastOrderTime = null;
+        Long lastId = null;
+        while (true) {
+            List<Orders> page = orderMapper.getByStatusAndOrderTimeLTAfter(
+                    fromStatus, orderTime, lastOrderTime, lastId, BATCH_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            List<Long> ids = page.stream().map(Orders::getId).collect(Collectors.toList());
+            count += updateBatch.apply(ids);
+            Orders last = page.get(page.size() - 1);
+            lastOrderTime = last.getOrderTime();
+            lastId = last.getId();
+            if (page.size() < BATCH_SIZE) {
+                break;
             }
         }
+        return count;
     }
-
 }
-
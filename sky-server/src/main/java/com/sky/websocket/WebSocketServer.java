@@ -1,27 +1,61 @@
 package com.sky.websocket;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import javax.websocket.CloseReason;
 import javax.websocket.OnClose;
+import javax.websocket.OnError;
 import javax.websocket.OnMessage;
 import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
-import java.util.Collection;
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * WebSocket服务端点，用于处理WebSocket连接和消息。
+ * <p>
+ * 每个会话有一个有界的待发送队列，消息通过异步方式逐条发送，调用方只负责入队，不会因为某个浏览器网络慢而阻塞。
+ * 队列已满的会话视为消费过慢，发送失败或已关闭的会话视为失效，两者都会被标记为失效并移出会话表，客户端重连后恢复。
+ * 关闭连接可能阻塞，统一交给关闭线程执行，不占用推送消息的业务线程。
  */
 @Component
 @ServerEndpoint("/ws/{sid}")
+@Slf4j
 public class WebSocketServer {
 
+    /**
+     * 每个会话最多积压的待发送消息数
+     */
+    private static final int MAX_PENDING_MESSAGES = 100;
+
+    /**
+     * 单条消息异步发送的超时时间，单位毫秒
+     */
+    private static final long SEND_TIMEOUT = 5000;
+
     /**
      * 存储会话的映射，以sessionId作为键。
      */
-    private static Map<String, Session> sessionMap = new HashMap<>();
+    private static final Map<String, SessionSender> sessionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 执行关闭连接的线程池，关闭连接可能等待正在进行的发送，不能在调用方线程中执行
+     */
+    private static final ThreadPoolExecutor closeExecutor = new ThreadPoolExecutor(1, 4,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "websocket-close");
+                thread.setDaemon(true);
+                return thread;
+            });
 
     /**
      * 客户端连接打开时调用。
@@ -31,8 +65,12 @@ public class WebSocketServer {
      */
     @OnOpen
     public void onOpen(Session session, @PathParam("sid") String sid) {
-        System.out.println("客户端：" + sid + "建立连接");
-        sessionMap.put(sid, session);
+        log.info("客户端：{}建立连接", sid);
+        session.getAsyncRemote().setSendTimeout(SEND_TIMEOUT);
+        SessionSender old = sessionMap.put(sid, new SessionSender(sid, session));
+        if (old != null && old.session != session) {
+            old.close(CloseReason.CloseCodes.NORMAL_CLOSURE, "新连接已建立");
+        }
     }
 
     /**
@@ -43,33 +81,138 @@ public class WebSocketServer {
      */
     @OnMessage
     public void onMessage(String message, @PathParam("sid") String sid) {
-        System.out.println("收到来自客户端：" + sid + "的信息:" + message);
+        log.info("收到来自客户端：{}的信息:{}", sid, message);
     }
 
     /**
      * 客户端连接关闭时调用。
      *
+     * @param session 会话对象
      * @param sid 客户端的sessionId
      */
     @OnClose
-    public void onClose(@PathParam("sid") String sid) {
-        System.out.println("连接断开:" + sid);
-        sessionMap.remove(sid);
+    public void onClose(Session session, @PathParam("sid") String sid) {
+        log.info("连接断开:{}", sid);
+        remove(sid, session);
+    }
+
+    /**
+     * 连接发生错误时调用，移除失效的会话。
+     *
+     * @param session 会话对象
+     * @param error 错误信息
+     * @param sid 客户端的sessionId
+     */
+    @OnError
+    public void onError(Session session, Throwable error, @PathParam("sid") String sid) {
+        log.warn("连接异常:{}，{}", sid, error.getMessage());
+        remove(sid, session);
     }
 
     /**
      * 向所有客户端发送消息。
+     * <p>
+     * 只将消息放入每个会话的发送队列，立即返回。
      *
      * @param message 要发送的消息
      */
     public void sendToAllClient(String message) {
-        Collection<Session> sessions = sessionMap.values();
-        for (Session session : sessions) {
+        for (SessionSender sender : sessionMap.values()) {
+            sender.offer(message);
+        }
+    }
+
+    /**
+     * 只有会话表中的会话仍是该会话时才移除，避免误删同一sid重连后的新会话
+     */
+    private static void remove(String sid, Session session) {
+        sessionMap.computeIfPresent(sid, (key, sender) -> sender.session == session ? null : sender);
+    }
+
+    /**
+     * 单个会话的发送器，保证同一会话同一时间只有一条消息在发送
+     */
+    private static class SessionSender {
+
+        private final String sid;
+        private final Session session;
+        private final Queue<String> queue = new ArrayBlockingQueue<>(MAX_PENDING_MESSAGES);
+        private final AtomicBoolean sending = new AtomicBoolean(false);
+        /**
+         * 会话已失效，不再接收和发送消息
+         */
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        SessionSender(String sid, Session session) {
+            this.sid = sid;
+            this.session = session;
+        }
+
+        void offer(String message) {
+            if (closed.get()) {
+                return;
+            }
+            if (!session.isOpen()) {
+                remove(sid, session);
+                return;
+            }
+            if (!queue.offer(message)) {
+                log.warn("客户端：{}消息积压超过{}条，关闭连接", sid, MAX_PENDING_MESSAGES);
+                close(CloseReason.CloseCodes.TRY_AGAIN_LATER, "消息积压过多");
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                sendNext();
+            }
+        }
+
+        private void sendNext() {
+            if (closed.get()) {
+                sending.set(false);
+                return;
+            }
+            String message = queue.poll();
+            if (message == null) {
+                sending.set(false);
+                // 释放发送标记后可能有新消息入队，需要再次检查
+                if (!queue.isEmpty() && sending.compareAndSet(false, true)) {
+                    sendNext();
+                }
+                return;
+            }
             try {
-                session.getBasicRemote().sendText(message);
+                session.getAsyncRemote().sendText(message, result -> {
+                    if (result.isOK()) {
+                        sendNext();
+                    } else {
+                        log.warn("向客户端：{}发送消息失败，{}", sid, result.getException().getMessage());
+                        close(CloseReason.CloseCodes.CLOSED_ABNORMALLY, "发送失败");
+                    }
+                });
             } catch (Exception e) {
-                e.printStackTrace();
+                log.warn("向客户端：{}发送消息失败，{}", sid, e.getMessage());
+                close(CloseReason.CloseCodes.CLOSED_ABNORMALLY, "发送失败");
+            }
+        }
+
+        /**
+         * 将会话标记为失效并移出会话表，立即返回，实际关闭连接由关闭线程执行
+         */
+        void close(CloseReason.CloseCode code, String reason) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
             }
+            remove(sid, session);
+            queue.clear();
+            closeExecutor.execute(() -> {
+                try {
+                    if (session.isOpen()) {
+                        session.close(new CloseReason(code, reason));
+                    }
+                } catch (IOException e) {
+                    log.warn("关闭客户端：{}连接失败，{}", sid, e.getMessage());
+                }
+            });
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.sky.cache;
+
+import com.sky.entity.Dish;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(2048);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsSecondsOfLocalDateTime() {
+        LocalDateTime updateTime = LocalDateTime.of(2024, 5, 1, 12, 30, 45);
+        Dish dish = Dish.builder().id(1L).name("宫保鸡丁").price(new BigDecimal("28.00")).updateTime(updateTime).build();
+        List<Dish> dishes = new ArrayList<>();
+        dishes.add(dish);
+        CacheValue cacheValue = new CacheValue(dishes, 1000L, 5L);
+
+        CacheValue result = (CacheValue) serializer.deserialize(serializer.serialize(cacheValue));
+
+        Dish cached = ((List<Dish>) result.getValue()).get(0);
+        assertEquals(updateTime, cached.getUpdateTime());
+        assertEquals(new BigDecimal("28.00"), cached.getPrice());
+    }
+
+    @Test
+    void readsMinutePrecisionValuesWrittenBefore() {
+        String json = "{\"@class\":\"com.sky.entity.Dish\",\"id\":1,\"updateTime\":\"2024-05-01 12:30\"}";
+
+        Dish dish = (Dish) serializer.deserialize(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 30), dish.getUpdateTime());
+    }
+
+    @Test
+    void rejectsTypesOutsideAllowList() {
+        String json = "{\"@class\":\"java.net.URL\",\"protocol\":\"http\",\"host\":\"example.com\"}";
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
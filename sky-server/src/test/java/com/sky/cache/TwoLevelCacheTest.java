@@ -0,0 +1,167 @@
+package com.sky.cache;
+
+import com.sky.properties.NearCacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 二级缓存并发回源测试：两个节点共用同一个“Redis”层和同一把加载锁，
+ * 大量并发请求同时未命中时，每个key只允许回源一次
+ */
+class TwoLevelCacheTest {
+
+    private static final String CACHE_NAME = "dishCache";
+    private static final int THREADS = 500;
+    private static final long KEYS = 5;
+
+    private final ConcurrentMap<String, String> locks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, AtomicInteger> loadCounts = new ConcurrentHashMap<>();
+    private final List<TwoLevelCacheManager> managers = new ArrayList<>();
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        managers.forEach(TwoLevelCacheManager::destroy);
+    }
+
+    @Test
+    void loadsEachKeyOnceUnderConcurrentMisses() throws Exception {
+        NearCacheProperties properties = new NearCacheProperties();
+        properties.setEarlyRefreshBeta(0);
+        properties.setLoadLockWait(5000);
+        // 两个节点共用同一个远程缓存，模拟多实例部署
+        CacheManager redisCacheManager = new ConcurrentMapCacheManager(CACHE_NAME);
+        Cache node1 = newNode(redisCacheManager, properties).getCache(CACHE_NAME);
+        Cache node2 = newNode(redisCacheManager, properties).getCache(CACHE_NAME);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Cache cache = i % 2 == 0 ? node1 : node2;
+            long key = i % KEYS;
+            results.add(executor.submit(() -> {
+                start.await();
+                String value = cache.get(key, () -> load(key));
+                return ("dish-" + key).equals(value);
+            }));
+        }
+        start.countDown();
+
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get(30, TimeUnit.SECONDS));
+        }
+        assertEquals(KEYS, loadCounts.size());
+        loadCounts.forEach((key, count) -> assertEquals(1, count.get(), "key " + key + " 回源次数"));
+    }
+
+    @Test
+    void evictionDuringSlowLoadIsNotOverwritten() throws Exception {
+        CacheManager redisCacheManager = new ConcurrentMapCacheManager(CACHE_NAME);
+        Cache cache = newNode(redisCacheManager, new NearCacheProperties()).getCache(CACHE_NAME);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+
+        // 加载线程读到旧数据后，管理端修改了数据并删除缓存，然后加载线程才返回
+        Future<String> result = executor.submit(() -> cache.get(1L, () -> {
+            loading.countDown();
+            evicted.await();
+            return "old";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.evict(1L);
+        evicted.countDown();
+
+        assertEquals("old", result.get(5, TimeUnit.SECONDS));
+        assertNull(cache.get(1L));
+        assertNull(redisCacheManager.getCache(CACHE_NAME).get(1L));
+        assertEquals("new", cache.get(1L, () -> "new"));
+    }
+
+    @Test
+    void putDuringSlowLoadIsKept() throws Exception {
+        CacheManager redisCacheManager = new ConcurrentMapCacheManager(CACHE_NAME);
+        Cache cache = newNode(redisCacheManager, new NearCacheProperties()).getCache(CACHE_NAME);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+
+        Future<String> result = executor.submit(() -> cache.get(1L, () -> {
+            loading.countDown();
+            written.await();
+            return "old";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.put(1L, "new");
+        written.countDown();
+
+        assertEquals("old", result.get(5, TimeUnit.SECONDS));
+        assertEquals("new", cache.get(1L, String.class));
+    }
+
+    private String load(long key) throws InterruptedException {
+        loadCounts.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+        // 模拟较慢的数据库查询，让其他请求都落在加载期间
+        Thread.sleep(200);
+        return "dish-" + key;
+    }
+
+    private TwoLevelCacheManager newNode(CacheManager redisCacheManager, NearCacheProperties properties) {
+        TwoLevelCacheManager manager = new InMemoryLockCacheManager(redisCacheManager, properties);
+        managers.add(manager);
+        return manager;
+    }
+
+    /**
+     * 用内存中的Map代替Redis分布式锁，并且不发布失效消息
+     */
+    private class InMemoryLockCacheManager extends TwoLevelCacheManager {
+
+        InMemoryLockCacheManager(CacheManager redisCacheManager, NearCacheProperties properties) {
+            super(redisCacheManager, null, properties);
+        }
+
+        @Override
+        String tryLock(String lockKey, long ttlMillis) {
+            String token = UUID.randomUUID().toString();
+            return locks.putIfAbsent(lockKey, token) == null ? token : null;
+        }
+
+        @Override
+        void unlock(String lockKey, String token) {
+            locks.remove(lockKey, token);
+        }
+
+        @Override
+        void publishEvict(String cacheName, Object key) {
+        }
+
+        @Override
+        void publishClear(String cacheName) {
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.sky.config;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 节点编号租约被其他节点占用后，不能继续使用原来的编号生成ID
+ */
+class SnowflakeWorkerLeaseTest {
+
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private SnowflakeWorkerLease lease;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment("snowflake:worker_id")).thenReturn(1L);
+        // 启动时租到1号编号，之后1号编号被其他节点占用
+        when(valueOperations.setIfAbsent(eq("snowflake:worker:1"), anyString(), anyLong(), any(TimeUnit.class)))
+                .thenReturn(true, false);
+        // 续期时发现租约属于其他节点
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any())).thenReturn(0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (lease != null) {
+            lease.destroy();
+        }
+    }
+
+    @Test
+    void switchesToFreeWorkerIdWhenLeaseIsLost() {
+        when(valueOperations.setIfAbsent(eq("snowflake:worker:2"), anyString(), anyLong(), any(TimeUnit.class)))
+                .thenReturn(true);
+        lease = new SnowflakeWorkerLease(stringRedisTemplate);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(lease::getWorkerId);
+        assertEquals(1, workerIdOf(generator.nextId()));
+
+        lease.renew();
+
+        assertEquals(2, lease.getWorkerId());
+        assertEquals(2, workerIdOf(generator.nextId()));
+    }
+
+    @Test
+    void stopsIssuingIdsWhenNoWorkerIdIsFree() {
+        lease = new SnowflakeWorkerLease(stringRedisTemplate);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(lease::getWorkerId);
+        assertEquals(1, workerIdOf(generator.nextId()));
+
+        lease.renew();
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    private static long workerIdOf(long id) {
+        return (id >>> 12) & SnowflakeIdGenerator.MAX_WORKER_ID;
+    }
+}
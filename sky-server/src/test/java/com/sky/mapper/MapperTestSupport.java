@@ -0,0 +1,75 @@
+package com.sky.mapper;
+
+import com.sky.interceptor.SqlCountPlugin;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 映射文件测试的公共方法：使用MySQL兼容模式的H2内存数据库加载真实的映射文件，
+ * 并注册{@link SqlCountPlugin}，测试中可以通过SqlCountContext断言执行的SQL语句条数
+ */
+public final class MapperTestSupport {
+
+    private MapperTestSupport() {
+    }
+
+    /**
+     * 创建连接H2内存数据库的SqlSessionManager，每次调用mapper方法时自动开启并提交会话
+     *
+     * @param database        内存数据库名称，不同测试类使用不同的名称互不影响
+     * @param mapperLocations 需要加载的映射文件，如mapper/DishMapper.xml
+     * @return SqlSessionManager
+     */
+    public static SqlSessionManager openSessionManager(String database, String... mapperLocations) throws IOException {
+        PooledDataSource dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE", "sa", "");
+        Configuration configuration = new Configuration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.getTypeAliasRegistry().registerAliases("com.sky.entity");
+        configuration.addInterceptor(new SqlCountPlugin());
+        for (String location : mapperLocations) {
+            try (InputStream inputStream = Resources.getResourceAsStream(location)) {
+                new XMLMapperBuilder(inputStream, configuration, location, configuration.getSqlFragments()).parse();
+            }
+        }
+        return SqlSessionManager.newInstance(new SqlSessionFactoryBuilder().build(configuration));
+    }
+
+    /**
+     * 直接通过JDBC执行建表、准备数据等语句，不经过MyBatis，因此不计入SQL语句条数
+     */
+    public static void execute(SqlSessionManager sessionManager, String... statements) throws SQLException {
+        try (SqlSession session = sessionManager.openSession(true);
+             Statement statement = session.getConnection().createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * 直接通过JDBC查询一个数值，如select count(*)，不计入SQL语句条数
+     */
+    public static long queryForLong(SqlSessionManager sessionManager, String sql) throws SQLException {
+        try (SqlSession session = sessionManager.openSession(true);
+             Statement statement = session.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
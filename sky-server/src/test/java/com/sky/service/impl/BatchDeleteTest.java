@@ -0,0 +1,116 @@
+package com.sky.service.impl;
+
+import com.sky.constant.StatusConstant;
+import com.sky.context.SqlCountContext;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.MapperTestSupport;
+import com.sky.mapper.SetmealDishMapper;
+import com.sky.mapper.SetmealMapper;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 批量删除菜品、套餐时，无论删除多少条数据，执行的SQL语句条数都是固定的
+ */
+class BatchDeleteTest {
+
+    private static final int SIZE = 1000;
+
+    private static SqlSessionManager sessionManager;
+
+    private final DishServiceImpl dishService = new DishServiceImpl();
+    private final SetmealServiceImpl setmealService = new SetmealServiceImpl();
+
+    @BeforeAll
+    static void createTables() throws Exception {
+        sessionManager = MapperTestSupport.openSessionManager("batch_delete",
+                "mapper/DishMapper.xml", "mapper/DishFlavorMapper.xml",
+                "mapper/SetmealMapper.xml", "mapper/SetmealDishMapper.xml");
+        MapperTestSupport.execute(sessionManager,
+                "create table dish (id bigint primary key, name varchar(32), category_id bigint, status int)",
+                "create table dish_flavor (id bigint primary key, dish_id bigint, name varchar(32), value varchar(255))",
+                "create table setmeal (id bigint primary key, name varchar(32), category_id bigint, status int)",
+                "create table setmeal_dish (id bigint primary key, setmeal_id bigint, dish_id bigint)");
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 准备1000个停售的菜品和套餐，每个菜品一条口味，每个套餐一条关联菜品（关联的菜品不在删除范围内）
+        MapperTestSupport.execute(sessionManager,
+                "delete from dish", "delete from dish_flavor", "delete from setmeal", "delete from setmeal_dish",
+                values("insert into dish (id, name, category_id, status) values ", id -> "(" + id + ", 'dish" + id + "', 1, 0)"),
+                values("insert into dish_flavor (id, dish_id, name, value) values ", id -> "(" + id + ", " + id + ", '辣度', '[]')"),
+                values("insert into setmeal (id, name, category_id, status) values ", id -> "(" + id + ", 'setmeal" + id + "', 2, 0)"),
+                values("insert into setmeal_dish (id, setmeal_id, dish_id) values ", id -> "(" + id + ", " + id + ", " + (SIZE + id) + ")"));
+
+        ReflectionTestUtils.setField(dishService, "dishMapper", sessionManager.getMapper(DishMapper.class));
+        ReflectionTestUtils.setField(dishService, "dishFlavorMapper", sessionManager.getMapper(DishFlavorMapper.class));
+        ReflectionTestUtils.setField(dishService, "setmealDishMapper", sessionManager.getMapper(SetmealDishMapper.class));
+        ReflectionTestUtils.setField(dishService, "setmealMapper", sessionManager.getMapper(SetmealMapper.class));
+        ReflectionTestUtils.setField(setmealService, "setmealMapper", sessionManager.getMapper(SetmealMapper.class));
+        ReflectionTestUtils.setField(setmealService, "setmealDishMapper", sessionManager.getMapper(SetmealDishMapper.class));
+        SqlCountContext.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlCountContext.remove();
+    }
+
+    @Test
+    void deleteDishesWithConstantStatements() throws Exception {
+        dishService.deleteBatch(ids());
+
+        // 查询菜品、查询关联套餐、删除菜品、删除口味
+        assertEquals(4, SqlCountContext.get());
+        assertEquals(0, MapperTestSupport.queryForLong(sessionManager, "select count(*) from dish"));
+        assertEquals(0, MapperTestSupport.queryForLong(sessionManager, "select count(*) from dish_flavor"));
+    }
+
+    @Test
+    void deleteSetmealsWithConstantStatements() throws Exception {
+        setmealService.deleteBatch(ids());
+
+        // 查询套餐、删除套餐、删除套餐关联的菜品
+        assertEquals(3, SqlCountContext.get());
+        assertEquals(0, MapperTestSupport.queryForLong(sessionManager, "select count(*) from setmeal"));
+        assertEquals(0, MapperTestSupport.queryForLong(sessionManager, "select count(*) from setmeal_dish"));
+    }
+
+    @Test
+    void emptyIdsExecuteNoStatements() throws Exception {
+        dishService.deleteBatch(Collections.emptyList());
+        setmealService.deleteBatch(Collections.emptyList());
+
+        assertEquals(0, SqlCountContext.get());
+        assertEquals(SIZE, MapperTestSupport.queryForLong(sessionManager, "select count(*) from dish"));
+        assertEquals(SIZE, MapperTestSupport.queryForLong(sessionManager, "select count(*) from setmeal"));
+    }
+
+    @Test
+    void emptyIdsStartOrStopExecutesNoStatements() {
+        assertEquals(Collections.emptySet(), dishService.startOrStopBatch(StatusConstant.DISABLE, Collections.emptyList()));
+        assertEquals(0, SqlCountContext.get());
+    }
+
+    private static List<Long> ids() {
+        return LongStream.rangeClosed(1, SIZE).boxed().collect(Collectors.toList());
+    }
+
+    private static String values(String insert, LongFunction<String> row) {
+        return LongStream.rangeClosed(1, SIZE).mapToObj(row).collect(Collectors.joining(", ", insert, ""));
+    }
+}
@@ -0,0 +1,108 @@
+package com.sky.service.impl;
+
+import com.sky.context.BaseContext;
+import com.sky.context.SqlCountContext;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.mapper.MapperTestSupport;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.result.PageResult;
+import com.sky.service.OrderSearchService;
+import com.sky.vo.OrderVO;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单分页查询的SQL语句条数与每页订单数量无关：查询订单、统计总数、一次批量查询全部订单明细
+ */
+class OrderPageQueryTest {
+
+    private static final int PAGE_SIZE = 50;
+    private static final long USER_ID = 1L;
+
+    private static SqlSessionManager sessionManager;
+
+    private final OrderServiceImpl orderService = new OrderServiceImpl();
+
+    @BeforeAll
+    static void createTables() throws Exception {
+        sessionManager = MapperTestSupport.openSessionManager("order_page_query",
+                "mapper/OrderMapper.xml", "mapper/OrderDetailMapper.xml");
+        MapperTestSupport.execute(sessionManager,
+                "create table orders (id bigint primary key, number varchar(50), status int, user_id bigint, "
+                        + "order_time datetime, amount decimal(10, 2), phone varchar(11))",
+                "create table order_detail (id bigint auto_increment primary key, name varchar(32), "
+                        + "order_id bigint, number int, amount decimal(10, 2))");
+        // 每个订单两条明细，下单时间各不相同
+        String orders = IntStream.rangeClosed(1, PAGE_SIZE * 2)
+                .mapToObj(id -> "(" + id + ", 'N" + id + "', 5, " + USER_ID + ", "
+                        + "timestamp '2024-01-01 00:00:00' + interval '" + id + "' minute, 30, '13800000000')")
+                .collect(Collectors.joining(", ", "insert into orders values ", ""));
+        String details = IntStream.rangeClosed(1, PAGE_SIZE * 2)
+                .mapToObj(id -> "('宫保鸡丁', " + id + ", 1, 28), ('米饭', " + id + ", 2, 2)")
+                .collect(Collectors.joining(", ", "insert into order_detail (name, order_id, number, amount) values ", ""));
+        MapperTestSupport.execute(sessionManager, orders, details);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        OrderSearchService orderSearchService = mock(OrderSearchService.class);
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+
+        ReflectionTestUtils.setField(orderService, "orderMapper", sessionManager.getMapper(OrderMapper.class));
+        ReflectionTestUtils.setField(orderService, "orderDetailMapper", sessionManager.getMapper(OrderDetailMapper.class));
+        ReflectionTestUtils.setField(orderService, "orderSearchService", orderSearchService);
+        ReflectionTestUtils.setField(orderService, "stringRedisTemplate", stringRedisTemplate);
+        SqlCountContext.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlCountContext.remove();
+        BaseContext.removeCurrentId();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void conditionSearchLoadsDetailsInOneStatement() {
+        OrdersPageQueryDTO ordersPageQueryDTO = new OrdersPageQueryDTO();
+        ordersPageQueryDTO.setPageSize(PAGE_SIZE);
+        ordersPageQueryDTO.setCursor("");
+
+        PageResult pageResult = orderService.conditionSearch(ordersPageQueryDTO);
+
+        assertEquals(3, SqlCountContext.get());
+        List<OrderVO> records = (List<OrderVO>) pageResult.getRecords();
+        assertEquals(PAGE_SIZE, records.size());
+        records.forEach(orderVO -> assertEquals("宫保鸡丁*1;米饭*2;", orderVO.getOrderDishes()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pageQuery4UserLoadsDetailsInOneStatement() {
+        BaseContext.setCurrentId(USER_ID);
+
+        PageResult pageResult = orderService.pageQuery4User(1, PAGE_SIZE, null, "");
+
+        assertEquals(3, SqlCountContext.get());
+        List<OrderVO> records = (List<OrderVO>) pageResult.getRecords();
+        assertEquals(PAGE_SIZE, records.size());
+        records.forEach(orderVO -> assertEquals(2, orderVO.getOrderDetailList().size()));
+    }
+}
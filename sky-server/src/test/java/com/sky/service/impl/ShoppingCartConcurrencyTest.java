@@ -0,0 +1,128 @@
+package com.sky.service.impl;
+
+import com.sky.context.BaseContext;
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.Dish;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.MapperTestSupport;
+import com.sky.mapper.ShoppingCartMapper;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * MySQL购物车并发测试：同一商品并发添加时依靠唯一索引uk_user_item只保留一行并累加数量，
+ * 减少到0时删除该行
+ */
+class ShoppingCartConcurrencyTest {
+
+    private static final int THREADS = 100;
+    private static final long USER_ID = 1L;
+    private static final long DISH_ID = 10L;
+
+    private static SqlSessionManager sessionManager;
+
+    private final ShoppingCartServiceImpl shoppingCartService = new ShoppingCartServiceImpl();
+    private ExecutorService executor;
+
+    @BeforeAll
+    static void createTables() throws Exception {
+        sessionManager = MapperTestSupport.openSessionManager("shopping_cart_concurrency", "mapper/ShoppingCartMapper.xml");
+        // 与映射文件注释中的生成列和唯一索引一致
+        MapperTestSupport.execute(sessionManager,
+                "create table shopping_cart (id bigint auto_increment primary key, name varchar(32), image varchar(255), "
+                        + "user_id bigint, dish_id bigint, setmeal_id bigint, dish_flavor varchar(50), number int, "
+                        + "amount decimal(10, 2), create_time datetime, "
+                        + "item_key varchar(200) generated always as "
+                        + "(concat(ifnull(dish_id, ''), '|', ifnull(dish_flavor, ''), '|', ifnull(setmeal_id, ''))), "
+                        + "unique key uk_user_item (user_id, item_key))");
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MapperTestSupport.execute(sessionManager, "delete from shopping_cart");
+        DishMapper dishMapper = mock(DishMapper.class);
+        when(dishMapper.getById(DISH_ID)).thenReturn(
+                Dish.builder().id(DISH_ID).name("宫保鸡丁").image("dish.png").price(new BigDecimal("28.00")).build());
+        ReflectionTestUtils.setField(shoppingCartService, "shoppingCartMapper", sessionManager.getMapper(ShoppingCartMapper.class));
+        ReflectionTestUtils.setField(shoppingCartService, "dishMapper", dishMapper);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        BaseContext.removeCurrentId();
+    }
+
+    @Test
+    void concurrentAddsKeepOneRow() throws Exception {
+        addConcurrently();
+
+        assertEquals(1, MapperTestSupport.queryForLong(sessionManager, "select count(*) from shopping_cart"));
+        assertEquals(THREADS, MapperTestSupport.queryForLong(sessionManager, "select number from shopping_cart"));
+    }
+
+    @Test
+    void subtractingLastItemDeletesRow() throws Exception {
+        addConcurrently();
+        BaseContext.setCurrentId(USER_ID);
+
+        for (int i = 1; i < THREADS; i++) {
+            shoppingCartService.subShoppingCart(dishDTO());
+        }
+        assertEquals(1, MapperTestSupport.queryForLong(sessionManager, "select number from shopping_cart"));
+
+        shoppingCartService.subShoppingCart(dishDTO());
+        assertEquals(0, MapperTestSupport.queryForLong(sessionManager, "select count(*) from shopping_cart"));
+        // 商品已不在购物车中时不做任何操作
+        shoppingCartService.subShoppingCart(dishDTO());
+        assertEquals(0, MapperTestSupport.queryForLong(sessionManager, "select count(*) from shopping_cart"));
+    }
+
+    /**
+     * 所有线程同时添加同一个没有口味的菜品
+     */
+    private void addConcurrently() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                BaseContext.setCurrentId(USER_ID);
+                try {
+                    start.await();
+                    shoppingCartService.addShoppingCart(dishDTO());
+                    return null;
+                } finally {
+                    BaseContext.removeCurrentId();
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static ShoppingCartDTO dishDTO() {
+        ShoppingCartDTO shoppingCartDTO = new ShoppingCartDTO();
+        shoppingCartDTO.setDishId(DISH_ID);
+        return shoppingCartDTO;
+    }
+}
@@ -0,0 +1,145 @@
+package com.sky.task;
+
+import com.sky.context.SqlCountContext;
+import com.sky.mapper.BusinessDailyMapper;
+import com.sky.mapper.MapperTestSupport;
+import com.sky.mapper.OrderMapper;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 定时完成派送中订单：大量积压时按批次处理，SQL语句条数随批次数增长而不是随订单数增长，
+ * 每批累加的每日营业数据与订单表一致
+ */
+class OrderTaskTest {
+
+    private static final int ORDERS = 100_000;
+    private static final int BATCH_SIZE = 500;
+    /**
+     * 不处于派送中的订单，不能被完成
+     */
+    private static final int OTHER_ORDERS = 100;
+
+    private static SqlSessionManager sessionManager;
+
+    private final OrderTask orderTask = new OrderTask();
+
+    @BeforeAll
+    static void createTables() throws Exception {
+        sessionManager = MapperTestSupport.openSessionManager("order_task",
+                "mapper/OrderMapper.xml", "mapper/BusinessDailyMapper.xml");
+        MapperTestSupport.execute(sessionManager,
+                "create table orders (id bigint primary key, status int, order_time datetime, amount decimal(10, 2), "
+                        + "delivery_time datetime, cancel_reason varchar(255), cancel_time datetime)",
+                "create table business_daily (date date primary key, turnover decimal(12, 2), order_count int, "
+                        + "valid_order_count int, new_users int)",
+                // 派送中的订单每分钟一个，分布在约70天中
+                "insert into orders (id, status, order_time, amount) "
+                        + "select x, 4, dateadd('MINUTE', x, timestamp '2024-01-01 00:00:00'), 30 + mod(x, 5) "
+                        + "from system_range(1, " + ORDERS + ")",
+                "insert into orders (id, status, order_time, amount) "
+                        + "select x, 3, dateadd('MINUTE', x, timestamp '2024-01-01 00:00:00'), 30 "
+                        + "from system_range(" + (ORDERS + 1) + ", " + (ORDERS + OTHER_ORDERS) + ")");
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderTask, "orderMapper", sessionManager.getMapper(OrderMapper.class));
+        ReflectionTestUtils.setField(orderTask, "businessDailyMapper", sessionManager.getMapper(BusinessDailyMapper.class));
+        ReflectionTestUtils.setField(orderTask, "transactionTemplate",
+                new TransactionTemplate(new SessionTransactionManager()));
+        SqlCountContext.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlCountContext.remove();
+    }
+
+    @Test
+    void completesBacklogInBatches() throws Exception {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+
+        orderTask.processDeliveryOrder();
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("完成%d个派送中订单耗时%dms，堆内存峰值%dMB，SQL语句%d条%n",
+                ORDERS, elapsedMillis, peakHeap / 1024 / 1024, SqlCountContext.get());
+
+        assertEquals(ORDERS, MapperTestSupport.queryForLong(sessionManager,
+                "select count(*) from orders where status = 5 and delivery_time is not null"));
+        assertEquals(OTHER_ORDERS, MapperTestSupport.queryForLong(sessionManager,
+                "select count(*) from orders where status = 3"));
+
+        // 每批：查询一页订单id、锁定订单、修改状态，以及按下单日期累加汇总（一批500分钟最多跨两天）
+        int batches = ORDERS / BATCH_SIZE;
+        int statements = SqlCountContext.get();
+        assertTrue(statements >= batches * 4, "SQL语句" + statements + "条");
+        assertTrue(statements <= batches * 5 + 1, "SQL语句" + statements + "条");
+
+        // 汇总表每天的有效订单数和营业额与订单表一致
+        assertEquals(MapperTestSupport.queryForLong(sessionManager,
+                        "select count(distinct cast(order_time as date)) from orders where status = 5"),
+                MapperTestSupport.queryForLong(sessionManager, "select count(*) from business_daily"));
+        assertEquals(0, MapperTestSupport.queryForLong(sessionManager,
+                "select count(*) from business_daily b "
+                        + "join (select cast(order_time as date) d, count(*) c, sum(amount) s from orders "
+                        + "where status = 5 group by cast(order_time as date)) o on b.date = o.d "
+                        + "where b.valid_order_count <> o.c or b.turnover <> o.s"));
+        assertEquals(ORDERS, MapperTestSupport.queryForLong(sessionManager,
+                "select sum(valid_order_count) from business_daily"));
+    }
+
+    /**
+     * 用SqlSessionManager的托管会话实现事务，TransactionTemplate中的mapper调用共用同一个会话和连接
+     */
+    private static class SessionTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            sessionManager.startManagedSession();
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            try {
+                sessionManager.commit();
+            } finally {
+                sessionManager.close();
+            }
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            try {
+                sessionManager.rollback();
+            } finally {
+                sessionManager.close();
+            }
+        }
+    }
+}
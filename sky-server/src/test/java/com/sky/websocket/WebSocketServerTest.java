@@ -0,0 +1,120 @@
+package com.sky.websocket;
+
+import com.sky.context.BaseContext;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.queue.OrderTimeoutQueue;
+import com.sky.service.impl.OrderServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 推送消息不受慢客户端影响：发送立即返回，正常的客户端收到全部消息，
+ * 慢客户端积压超过上限后被关闭
+ */
+class WebSocketServerTest {
+
+    private static final int MAX_PENDING_MESSAGES =
+            (Integer) ReflectionTestUtils.getField(WebSocketServer.class, "MAX_PENDING_MESSAGES");
+
+    private final WebSocketServer webSocketServer = new WebSocketServer();
+
+    private Session fastSession;
+    private RemoteEndpoint.Async fastRemote;
+    private Session slowSession;
+    private RemoteEndpoint.Async slowRemote;
+
+    @BeforeEach
+    void setUp() {
+        fastRemote = mock(RemoteEndpoint.Async.class);
+        // 正常的客户端立即发送完成
+        doAnswer(invocation -> {
+            invocation.<SendHandler>getArgument(1).onResult(new SendResult());
+            return null;
+        }).when(fastRemote).sendText(anyString(), any(SendHandler.class));
+        fastSession = session(fastRemote);
+
+        // 慢客户端的发送永远不会完成
+        slowRemote = mock(RemoteEndpoint.Async.class);
+        slowSession = session(slowRemote);
+
+        webSocketServer.onOpen(fastSession, "fast");
+        webSocketServer.onOpen(slowSession, "slow");
+    }
+
+    @AfterEach
+    void tearDown() {
+        webSocketServer.onClose(fastSession, "fast");
+        webSocketServer.onClose(slowSession, "slow");
+        BaseContext.removeCurrentId();
+    }
+
+    @Test
+    void slowClientDoesNotBlockBroadcast() throws Exception {
+        // 第一条消息在慢客户端上一直处于发送中，其后积压的消息填满队列，最后一条超出上限
+        int messages = MAX_PENDING_MESSAGES + 2;
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            webSocketServer.sendToAllClient("message-" + i);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1000, "推送耗时" + elapsedMillis + "ms");
+        verify(fastRemote, times(messages)).sendText(anyString(), any(SendHandler.class));
+        verify(slowRemote, times(1)).sendText(anyString(), any(SendHandler.class));
+        verify(slowSession, timeout(5000)).close(any(CloseReason.class));
+        verify(fastSession, never()).close(any(CloseReason.class));
+
+        // 慢客户端已移出会话表，之后的消息只发给正常的客户端
+        webSocketServer.sendToAllClient("after-close");
+        verify(fastRemote, times(messages + 1)).sendText(anyString(), any(SendHandler.class));
+        verify(slowRemote, times(1)).sendText(anyString(), any(SendHandler.class));
+    }
+
+    @Test
+    void paySuccessReturnsPromptlyWithSlowClient() {
+        OrderMapper orderMapper = mock(OrderMapper.class);
+        when(orderMapper.getByNumberAndUserId(anyString(), any())).thenReturn(Orders.builder().id(1L).build());
+        OrderServiceImpl orderService = new OrderServiceImpl();
+        ReflectionTestUtils.setField(orderService, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(orderService, "orderTimeoutQueue", mock(OrderTimeoutQueue.class));
+        ReflectionTestUtils.setField(orderService, "webSocketServer", webSocketServer);
+        BaseContext.setCurrentId(1L);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MAX_PENDING_MESSAGES + 2; i++) {
+            orderService.paySuccess("N" + i);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1000, "支付成功处理耗时" + elapsedMillis + "ms");
+        verify(fastRemote, times(MAX_PENDING_MESSAGES + 2)).sendText(anyString(), any(SendHandler.class));
+        verify(slowSession, timeout(5000)).close(any(CloseReason.class));
+    }
+
+    private static Session session(RemoteEndpoint.Async remote) {
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAsyncRemote()).thenReturn(remote);
+        return session;
+    }
+}